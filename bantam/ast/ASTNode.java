@@ -26,8 +26,12 @@
 
 package proj8BogatyrevDimitrovWang.bantam.ast;
 
+import proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor;
+import proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor;
 import proj8BogatyrevDimitrovWang.bantam.visitor.Visitor;
 
+import java.util.List;
+
 
 /**
  * The abstract <tt>ASTNode</tt> class represents a generic AST node.
@@ -257,6 +261,12 @@ public abstract class ASTNode {
      */
     protected int lineNum;
 
+    /**
+     * The structural hash of the subtree at this node, or 0 if it has not
+     * been computed yet (see StructuralHash)
+     */
+    int structuralHash;
+
     /**
      * ASTNode constructor
      *
@@ -275,6 +285,50 @@ public abstract class ASTNode {
         return lineNum;
     }
 
+    /**
+     * Set the line number, as when the source code before the node
+     * was edited
+     *
+     * @param lineNum source line number corresponding to this AST node
+     */
+    public void setLineNum(int lineNum) {
+        this.lineNum = lineNum;
+    }
+
+    /**
+     * Get a hash of the subtree at this node that depends only on its
+     * structure, not on the line numbers. It is computed once and kept in
+     * the nodes, so the subtree must not be changed afterwards.
+     *
+     * @return structural hash
+     * @see StructuralHash
+     */
+    public int structuralHash() {
+        return StructuralHash.of(this);
+    }
+
+    /**
+     * Check whether the subtree at this node is the same as the subtree at
+     * another node, apart from the line numbers
+     *
+     * @param other the other node
+     * @return whether the subtrees are the same
+     * @see StructuralHash
+     */
+    public boolean structurallyEquals(ASTNode other) {
+        return StructuralHash.equal(this, other);
+    }
+
+    /**
+     * Add the children of this node to the list, in the order the
+     * Visitor visits them, so that the tree can be walked without a
+     * Visitor (see StackVisitor). A node without children adds nothing.
+     *
+     * @param children the list to add the children to
+     */
+    public void addChildrenTo(List<ASTNode> children) {
+    }
+
     /**
      * Visitor method
      *
@@ -283,4 +337,24 @@ public abstract class ASTNode {
      * @see proj8BogatyrevDimitrovWang.bantam.visitor.Visitor
      */
     abstract public Object accept(Visitor v);
+
+    /**
+     * TypedVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor
+     */
+    abstract public <R, C> R accept(TypedVisitor<R, C> v, C context);
+
+    /**
+     * IntVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor
+     */
+    abstract public <C> int accept(IntVisitor<C> v, C context);
 }
@@ -26,8 +26,12 @@
 
 package proj8BogatyrevDimitrovWang.bantam.ast;
 
+import proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor;
+import proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor;
 import proj8BogatyrevDimitrovWang.bantam.visitor.Visitor;
 
+import java.util.List;
+
 
 /**
  * The <tt>AssignExpr</tt> class represents assignment expressions.
@@ -97,6 +101,16 @@ public class AssignExpr extends Expr {
         return expr;
     }
 
+    /**
+     * Add the children of this node to the list, in the order the
+     * Visitor visits them
+     *
+     * @param children the list to add the children to
+     */
+    public void addChildrenTo(List<ASTNode> children) {
+        children.add(getExpr());
+    }
+
     /**
      * Visitor method
      *
@@ -107,4 +121,28 @@ public class AssignExpr extends Expr {
     public Object accept(Visitor v) {
         return v.visit(this);
     }
+
+    /**
+     * TypedVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor
+     */
+    public <R, C> R accept(TypedVisitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    /**
+     * IntVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor
+     */
+    public <C> int accept(IntVisitor<C> v, C context) {
+        return v.visit(this, context);
+    }
 }
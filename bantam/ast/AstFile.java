@@ -0,0 +1,410 @@
+/*
+ * File: AstFile.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.ast;
+
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Saves ASTs in a compact binary form and loads them again, so that a
+ * tool can get the AST of a file without scanning and parsing it. The AST
+ * is saved as its FlatAst, and a file is loaded by mapping it into memory
+ * (FileChannel.map) and decoding the nodes straight from the mapping.
+ *
+ * The form is: the bytes "BAST", the FORMAT, the file name, the table of
+ * names and constants, the number of nodes, and then each node in the
+ * order of the FlatAst: its kind as a byte, its line as the difference
+ * from the line of the node before it, its number of children, and the
+ * index of its name plus one (0 for none). Last come the nodes that have
+ * a second name or flags, each as the difference from the one before it,
+ * with the value plus one. Numbers are varints: 7 bits to a byte, low
+ * bits first, the top bit set on all bytes but the last; differences are
+ * zigzag-encoded so that small negative ones are short too. A string is
+ * its length and then its chars, each as a varint, so any String,
+ * even one with unpaired surrogates, comes back the same.
+ */
+public class AstFile
+{
+    /** the version of the form, to be increased whenever it changes */
+    public static final int FORMAT = 1;
+
+    private static final byte[] MAGIC = {'B', 'A', 'S', 'T'};
+
+    /** collects the bytes of an AST file in a growing array */
+    public static class Output
+    {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        /**
+         * @param b the byte to append
+         */
+        public void writeByte(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        /**
+         * appends a number that is not negative as a varint
+         *
+         * @param value the number
+         */
+        public void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        /**
+         * appends a number that may be negative as a zigzag varint
+         *
+         * @param value the number
+         */
+        public void writeSignedVarint(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        /**
+         * appends a string, which may be null
+         *
+         * @param string the string
+         */
+        public void writeString(String string) {
+            if (string == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(string.length() + 1);
+            for (int i = 0; i < string.length(); i++) {
+                writeVarint(string.charAt(i));
+            }
+        }
+
+        /**
+         * @return the number of bytes written so far
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * writes the bytes collected to the stream
+         *
+         * @param out the stream
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+    }
+
+    /** reads the parts of an AST file from a buffer */
+    public static class Input
+    {
+        private final ByteBuffer buffer;
+
+        /**
+         * @param buffer the bytes, from its position on
+         */
+        public Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return the next byte, from 0 to 255
+         * @throws IOException if there are no more bytes
+         */
+        public int readByte() throws IOException {
+            try {
+                return buffer.get() & 0xFF;
+            } catch (BufferUnderflowException e) {
+                throw new IOException("The AST file is cut short.", e);
+            }
+        }
+
+        /**
+         * @return the next number written by writeVarint
+         * @throws IOException if the bytes are not a varint
+         */
+        public int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("The AST file has a varint that is too long.");
+        }
+
+        /**
+         * @return the next number written by writeSignedVarint
+         */
+        public int readSignedVarint() throws IOException {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * @return the next string, or null
+         */
+        public String readString() throws IOException {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.remaining()) {
+                throw new IOException("The AST file is cut short.");
+            }
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) readVarint();
+            }
+            return new String(chars);
+        }
+
+        /**
+         * reads the number of the items that come next, each of which
+         * takes at least one byte, so a count larger than the bytes left
+         * (as in a damaged file) is not used to size an array
+         *
+         * @return the number, read with readVarint
+         * @throws IOException if there are fewer bytes left than that
+         */
+        public int readCount() throws IOException {
+            int count = readVarint();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IOException("The AST file is cut short.");
+            }
+            return count;
+        }
+
+        /**
+         * @return a number read with readVarint that must be below the limit
+         * @throws IOException if it is not
+         */
+        private int readIndex(int limit) throws IOException {
+            int value = readVarint();
+            if (value < 0 || value >= limit) {
+                throw new IOException("The AST file has a number out of range.");
+            }
+            return value;
+        }
+    }
+
+    /**
+     * appends the AST to the output
+     *
+     * @param ast the AST
+     * @param out where its bytes go
+     */
+    public static void encode(FlatAst ast, Output out) {
+        for (byte b : MAGIC) {
+            out.writeByte(b);
+        }
+        out.writeVarint(FORMAT);
+        out.writeString(ast.filename);
+        out.writeVarint(ast.strings.length);
+        for (String string : ast.strings) {
+            out.writeString(string);
+        }
+        out.writeVarint(ast.size);
+        int line = 0;
+        for (int node = 0; node < ast.size; node++) {
+            out.writeByte(ast.kinds[node]);
+            out.writeSignedVarint(ast.lines[node] - line);
+            line = ast.lines[node];
+            out.writeVarint(ast.childCount(node));
+            out.writeVarint(ast.names[node] + 1);
+        }
+        out.writeVarint(ast.extraCount);
+        int previous = 0;
+        for (int i = 0; i < ast.extraCount; i++) {
+            out.writeVarint(ast.extraNodes[i] - previous);
+            previous = ast.extraNodes[i];
+            out.writeVarint(ast.extras[i] + 1);
+        }
+    }
+
+    /**
+     * reads an AST appended by encode()
+     *
+     * @param in where its bytes come from
+     * @return the AST
+     * @throws IOException if the bytes are not an AST in this FORMAT
+     */
+    public static FlatAst decode(Input in) throws IOException {
+        for (byte b : MAGIC) {
+            if (in.readByte() != b) {
+                throw new IOException("This is not an AST file.");
+            }
+        }
+        if (in.readVarint() != FORMAT) {
+            throw new IOException("The AST file is of another format.");
+        }
+        String filename = in.readString();
+        String[] strings = new String[in.readCount()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readString();
+        }
+
+        int size = in.readIndex(Integer.MAX_VALUE);
+        byte[] kinds = new byte[Math.min(size, 1 << 16)];
+        int[] lines = new int[kinds.length];
+        int[] ends = new int[kinds.length];
+        int[] names = new int[kinds.length];
+        // the nodes whose children are still being read, and how many
+        // children each has yet to come
+        int[] open = new int[16];
+        int[] remaining = new int[16];
+        int depth = 0;
+        FlatAst.Kind[] allKinds = FlatAst.Kind.values();
+        int line = 0;
+        for (int node = 0; node < size; node++) {
+            if (node == kinds.length) {
+                int capacity = Math.min(size, node * 2);
+                kinds = Arrays.copyOf(kinds, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            kinds[node] = (byte) in.readIndex(allKinds.length);
+            line += in.readSignedVarint();
+            lines[node] = line;
+            int children = in.readIndex(size - node);
+            names[node] = in.readIndex(strings.length + 1) - 1;
+            if (depth > 0) {
+                remaining[depth - 1]--;
+            }
+            else if (node > 0) {
+                throw new IOException("The AST file has more than one root.");
+            }
+            if (children > 0) {
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                    remaining = Arrays.copyOf(remaining, depth * 2);
+                }
+                open[depth] = node;
+                remaining[depth++] = children;
+            }
+            else {
+                ends[node] = node + 1;
+                while (depth > 0 && remaining[depth - 1] == 0) {
+                    ends[open[--depth]] = node + 1;
+                }
+            }
+        }
+        if (depth > 0 || size == 0) {
+            throw new IOException("The AST file is cut short.");
+        }
+
+        int extraCount = in.readIndex(size + 1);
+        int[] extraNodes = new int[extraCount];
+        int[] extras = new int[extraCount];
+        int previous = 0;
+        for (int i = 0; i < extraCount; i++) {
+            previous += in.readIndex(size - previous);
+            extraNodes[i] = previous;
+            FlatAst.Kind kind = allKinds[kinds[previous]];
+            if (kind == FlatAst.Kind.FOR_STMT || kind == FlatAst.Kind.INCR_EXPR ||
+                    kind == FlatAst.Kind.DECR_EXPR) {
+                extras[i] = in.readIndex(Integer.MAX_VALUE) - 1; // flags
+            }
+            else {
+                extras[i] = in.readIndex(strings.length + 1) - 1; // a second name
+            }
+        }
+        return new FlatAst(filename, kinds, lines, ends, names, extraNodes,
+                extras, strings);
+    }
+
+    /**
+     * reads an AST appended by encode(), taking its identifiers (but not
+     * its constants) from the table, as if it had been parsed with it
+     *
+     * @param in where its bytes come from
+     * @param nameTable the table of identifier names of the compilation
+     * @return the AST
+     * @throws IOException if the bytes are not an AST in this FORMAT
+     */
+    public static FlatAst decode(Input in, NameTable nameTable) throws IOException {
+        FlatAst ast = decode(in);
+        boolean[] identifiers = new boolean[ast.strings.length];
+        for (int node = 0; node < ast.size; node++) {
+            FlatAst.Kind kind = ast.kind(node);
+            if (ast.names[node] != FlatAst.NONE && kind != FlatAst.Kind.CONST_INT_EXPR &&
+                    kind != FlatAst.Kind.CONST_BOOLEAN_EXPR &&
+                    kind != FlatAst.Kind.CONST_STRING_EXPR) {
+                identifiers[ast.names[node]] = true;
+            }
+        }
+        for (int i = 0; i < ast.extraCount; i++) {
+            // the second names: types and parents
+            FlatAst.Kind kind = ast.kind(ast.extraNodes[i]);
+            if (ast.extras[i] != FlatAst.NONE && kind != FlatAst.Kind.FOR_STMT &&
+                    kind != FlatAst.Kind.INCR_EXPR && kind != FlatAst.Kind.DECR_EXPR) {
+                identifiers[ast.extras[i]] = true;
+            }
+        }
+        for (int i = 0; i < identifiers.length; i++) {
+            if (identifiers[i]) {
+                ast.strings[i] = nameTable.intern(ast.strings[i]);
+            }
+        }
+        return ast;
+    }
+
+    /**
+     * saves the AST in the file, replacing what was there
+     *
+     * @param ast the AST
+     * @param file the file
+     */
+    public static void write(FlatAst ast, Path file) throws IOException {
+        Output out = new Output();
+        encode(ast, out);
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            out.writeTo(stream);
+        }
+    }
+
+    /**
+     * loads the AST saved in the file by mapping the file into memory
+     *
+     * @param file the file
+     * @return the AST
+     * @throws IOException if the file can't be read or is not an AST file
+     */
+    public static FlatAst read(Path file) throws IOException {
+        return decode(new Input(map(file)));
+    }
+
+    /**
+     * @return the contents of the file, mapped into memory
+     */
+    public static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * File: AstInterner.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.ast;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Shares identical subtrees of ASTs (hash-consing): when FlatAst.toProgram
+ * makes a node of one of the kinds given, and a node with the same name,
+ * second name, flags and children was made before, that node is used in
+ * its place. The children are made first and are shared themselves, so
+ * two nodes are the same if their children are the same objects, and
+ * whole subtrees end up shared. Generated code repeats the same
+ * variables, constants and expressions over and over, and sharing them
+ * saves much of the memory of its ASTs.
+ *
+ * A shared node is at several places of the AST but has a single line
+ * number, that of the first place it was made for. The lines of all the
+ * places are kept apart, in a LineTable made from the same FlatAst.
+ *
+ * Shared nodes must not be changed. In particular a shared expression
+ * has a single type (Expr.setExprType), so only constants, whose type
+ * does not depend on where they are, should be shared in ASTs that are to
+ * be type checked; the same variable can have different types in
+ * different methods. An AstInterner can be used for any number of ASTs,
+ * which then share nodes with each other too.
+ */
+public class AstInterner
+{
+    /** the constants */
+    public static final Set<FlatAst.Kind> CONSTANTS = EnumSet.of(
+            FlatAst.Kind.CONST_INT_EXPR, FlatAst.Kind.CONST_BOOLEAN_EXPR,
+            FlatAst.Kind.CONST_STRING_EXPR);
+
+    /** the constants and the variables, such as "x" or "this.x" */
+    public static final Set<FlatAst.Kind> LEAVES = EnumSet.of(
+            FlatAst.Kind.CONST_INT_EXPR, FlatAst.Kind.CONST_BOOLEAN_EXPR,
+            FlatAst.Kind.CONST_STRING_EXPR, FlatAst.Kind.VAR_EXPR);
+
+    /** what makes a node the same as another one */
+    static final class Key
+    {
+        private final FlatAst.Kind kind;
+        private final String name;
+        private final String secondName;
+        private final int flags;
+        private final ASTNode[] children; // already shared
+        private final int hash;
+
+        private Key(FlatAst.Kind kind, String name, String secondName, int flags,
+                    ASTNode[] children) {
+            this.kind = kind;
+            this.name = name;
+            this.secondName = secondName;
+            this.flags = flags;
+            this.children = children;
+            int hash = kind.ordinal();
+            hash = hash * 31 + Objects.hashCode(name);
+            hash = hash * 31 + Objects.hashCode(secondName);
+            hash = hash * 31 + flags;
+            for (ASTNode child : children) {
+                hash = hash * 31 + System.identityHashCode(child);
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key key) || key.hash != hash ||
+                    key.kind != kind || key.flags != flags ||
+                    !Objects.equals(key.name, name) ||
+                    !Objects.equals(key.secondName, secondName) ||
+                    key.children.length != children.length) {
+                return false;
+            }
+            for (int i = 0; i < children.length; i++) {
+                if (key.children[i] != children[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final Set<FlatAst.Kind> kinds;
+    private final Map<Key, ASTNode> nodes = new HashMap<>();
+    private long requests;
+
+    /**
+     * creates an interner that shares the constants and variables
+     */
+    public AstInterner() {
+        this(LEAVES);
+    }
+
+    /**
+     * creates an interner that shares the nodes of the given kinds
+     *
+     * @param kinds the kinds to share, such as CONSTANTS, LEAVES, or all the
+     *              kinds of expressions
+     */
+    public AstInterner(Set<FlatAst.Kind> kinds) {
+        this.kinds = EnumSet.copyOf(kinds);
+    }
+
+    /**
+     * makes the AST of the FlatAst with the nodes shared; its lines are
+     * in new LineTable(ast)
+     *
+     * @param ast the flat form of the AST
+     * @return the root of the AST
+     */
+    public Program intern(FlatAst ast) {
+        return ast.toProgram(this);
+    }
+
+    /**
+     * @return the key of the node described, or null if its kind is not
+     * shared or one of its children is not shared
+     */
+    Key keyOf(FlatAst.Kind kind, String name, String secondName, int flags,
+              ASTNode[] children) {
+        if (!kinds.contains(kind)) {
+            return null;
+        }
+        for (ASTNode child : children) {
+            if (!kinds.contains(FlatAst.Kind.of(child))) {
+                return null;
+            }
+        }
+        requests++;
+        return new Key(kind, name, secondName, flags, children);
+    }
+
+    /**
+     * @return the node made before with the given key, or null
+     */
+    ASTNode get(Key key) {
+        return nodes.get(key);
+    }
+
+    /**
+     * keeps the node to be used for the given key from now on
+     */
+    void put(Key key, ASTNode node) {
+        nodes.put(key, node);
+    }
+
+    /**
+     * @return the number of nodes the interner was asked for
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of different nodes it made of them
+     */
+    public int getSharedCount() {
+        return nodes.size();
+    }
+}
@@ -26,6 +26,8 @@
 
 package proj8BogatyrevDimitrovWang.bantam.ast;
 
+import proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor;
+import proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor;
 import proj8BogatyrevDimitrovWang.bantam.visitor.Visitor;
 
 
@@ -88,4 +90,28 @@ public class BinaryArithDivideExpr extends BinaryArithExpr {
     public Object accept(Visitor v) {
         return v.visit(this);
     }
+
+    /**
+     * TypedVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor
+     */
+    public <R, C> R accept(TypedVisitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    /**
+     * IntVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor
+     */
+    public <C> int accept(IntVisitor<C> v, C context) {
+        return v.visit(this, context);
+    }
 }
@@ -26,6 +26,8 @@
 
 package proj8BogatyrevDimitrovWang.bantam.ast;
 
+import proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor;
+import proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor;
 import proj8BogatyrevDimitrovWang.bantam.visitor.Visitor;
 
 
@@ -60,4 +62,24 @@ public abstract class BinaryArithExpr extends BinaryExpr {
      * @see proj8BogatyrevDimitrovWang.bantam.visitor.Visitor
      */
     abstract public Object accept(Visitor v);
+
+    /**
+     * TypedVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor
+     */
+    abstract public <R, C> R accept(TypedVisitor<R, C> v, C context);
+
+    /**
+     * IntVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor
+     */
+    abstract public <C> int accept(IntVisitor<C> v, C context);
 }
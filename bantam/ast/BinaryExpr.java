@@ -26,8 +26,12 @@
 
 package proj8BogatyrevDimitrovWang.bantam.ast;
 
+import proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor;
+import proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor;
 import proj8BogatyrevDimitrovWang.bantam.visitor.Visitor;
 
+import java.util.List;
+
 
 /**
  * The abstract <tt>BinaryExpr</tt> class represents binary expressions
@@ -108,6 +112,17 @@ public abstract class BinaryExpr extends Expr {
      */
     abstract public String getOperandType();
 
+    /**
+     * Add the children of this node to the list, in the order the
+     * Visitor visits them
+     *
+     * @param children the list to add the children to
+     */
+    public void addChildrenTo(List<ASTNode> children) {
+        children.add(getLeftExpr());
+        children.add(getRightExpr());
+    }
+
     /**
      * Visitor method
      *
@@ -116,4 +131,24 @@ public abstract class BinaryExpr extends Expr {
      * @see proj8BogatyrevDimitrovWang.bantam.visitor.Visitor
      */
     abstract public Object accept(Visitor v);
+
+    /**
+     * TypedVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor
+     */
+    abstract public <R, C> R accept(TypedVisitor<R, C> v, C context);
+
+    /**
+     * IntVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor
+     */
+    abstract public <C> int accept(IntVisitor<C> v, C context);
 }
@@ -0,0 +1,866 @@
+/*
+ * File: FlatAst.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.ast;
+
+import proj8BogatyrevDimitrovWang.bantam.visitor.StackVisitor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact form of the AST of a file, kept in a few arrays instead of an
+ * object per node. The nodes are numbered in the order a Visitor visits
+ * them (parents before their children, children in order), starting with
+ * the Program at 0. For each node, the arrays hold its kind, its line
+ * number, the number just past its last descendant (where its next
+ * sibling, if any, is) and an index into the table of names and
+ * constants. So the first child of a node is the node after it, and
+ * walking the whole tree is a walk along the arrays. The few nodes that
+ * have a second name (a type, a parent class) or flags have them in a
+ * separate table, sorted by node number, so the other nodes take up 13
+ * bytes each.
+ *
+ * A FlatAst is read with its methods taking node numbers or with a
+ * Cursor, and parts of it can be turned back into bantam.ast nodes with
+ * toNode(). Children that may be missing (an "else", a reference, the
+ * parts of a "for") are told apart by the number of children or, for a
+ * FOR_STMT, by its flags. A FlatAst is not changed once built.
+ */
+public class FlatAst
+{
+    /** the kind of a node, one for each concrete bantam.ast class */
+    public enum Kind
+    {
+        PROGRAM(Program.class), CLASS_LIST(ClassList.class), CLASS(Class_.class),
+        MEMBER_LIST(MemberList.class), FIELD(Field.class), METHOD(Method.class),
+        FORMAL_LIST(FormalList.class), FORMAL(Formal.class),
+        STMT_LIST(StmtList.class), DECL_STMT(DeclStmt.class), EXPR_STMT(ExprStmt.class),
+        IF_STMT(IfStmt.class), WHILE_STMT(WhileStmt.class), FOR_STMT(ForStmt.class),
+        BREAK_STMT(BreakStmt.class), BLOCK_STMT(BlockStmt.class),
+        RETURN_STMT(ReturnStmt.class), EXPR_LIST(ExprList.class),
+        DISPATCH_EXPR(DispatchExpr.class), NEW_EXPR(NewExpr.class),
+        INSTANCEOF_EXPR(InstanceofExpr.class), CAST_EXPR(CastExpr.class),
+        ASSIGN_EXPR(AssignExpr.class), VAR_EXPR(VarExpr.class),
+        PLUS_EXPR(BinaryArithPlusExpr.class), MINUS_EXPR(BinaryArithMinusExpr.class),
+        TIMES_EXPR(BinaryArithTimesExpr.class), DIVIDE_EXPR(BinaryArithDivideExpr.class),
+        MODULUS_EXPR(BinaryArithModulusExpr.class), EQ_EXPR(BinaryCompEqExpr.class),
+        NE_EXPR(BinaryCompNeExpr.class), LT_EXPR(BinaryCompLtExpr.class),
+        LEQ_EXPR(BinaryCompLeqExpr.class), GT_EXPR(BinaryCompGtExpr.class),
+        GEQ_EXPR(BinaryCompGeqExpr.class), AND_EXPR(BinaryLogicAndExpr.class),
+        OR_EXPR(BinaryLogicOrExpr.class), NEG_EXPR(UnaryNegExpr.class),
+        NOT_EXPR(UnaryNotExpr.class), INCR_EXPR(UnaryIncrExpr.class),
+        DECR_EXPR(UnaryDecrExpr.class), CONST_INT_EXPR(ConstIntExpr.class),
+        CONST_BOOLEAN_EXPR(ConstBooleanExpr.class),
+        CONST_STRING_EXPR(ConstStringExpr.class);
+
+        private static final Kind[] KINDS = values();
+        private static final Map<Class<?>, Kind> BY_CLASS = new HashMap<>();
+
+        static {
+            for (Kind kind : KINDS) {
+                BY_CLASS.put(kind.nodeClass, kind);
+            }
+        }
+
+        private final Class<? extends ASTNode> nodeClass;
+
+        Kind(Class<? extends ASTNode> nodeClass) {
+            this.nodeClass = nodeClass;
+        }
+
+        /**
+         * @return the bantam.ast class of the nodes of this kind
+         */
+        public Class<? extends ASTNode> getNodeClass() {
+            return nodeClass;
+        }
+
+        /**
+         * @return the kind of the node; a subclass of a node class (such
+         * as a LazyMethod) has the kind of that class
+         */
+        static Kind of(ASTNode node) {
+            Class<?> nodeClass = node.getClass();
+            Kind kind = BY_CLASS.get(nodeClass);
+            while (kind == null) {
+                nodeClass = nodeClass.getSuperclass();
+                kind = BY_CLASS.get(nodeClass);
+            }
+            return kind;
+        }
+    }
+
+    /** the number of a missing node or name */
+    public static final int NONE = -1;
+
+    /** the flag of a FOR_STMT that has an initialization expression */
+    public static final int FOR_INIT = 1;
+    /** the flag of a FOR_STMT that has a predicate expression */
+    public static final int FOR_PRED = 2;
+    /** the flag of a FOR_STMT that has an update expression */
+    public static final int FOR_UPDATE = 4;
+    /** the flag of an INCR_EXPR or DECR_EXPR that is postfix */
+    public static final int POSTFIX = 1;
+
+    // package-private, so that AstFile can save and load them
+    final String filename;
+    byte[] kinds;
+    int[] lines;
+    int[] ends;     // the number just past the node's last descendant
+    int[] names;    // the index of the node's name, or NONE
+    int size;
+    int[] extraNodes;  // the nodes with a second name or flags, in order
+    int[] extras;      // the index of that second name, or the flags
+    int extraCount;
+    String[] strings; // the names and constants, each once
+
+    /**
+     * @param filename the name of the file the AST is of
+     */
+    private FlatAst(String filename) {
+        this.filename = filename;
+        kinds = new byte[64];
+        lines = new int[64];
+        ends = new int[64];
+        names = new int[64];
+        extraNodes = new int[16];
+        extras = new int[16];
+        strings = new String[16];
+    }
+
+    /**
+     * makes a FlatAst of the given arrays, which it keeps, as AstFile
+     * loads it
+     */
+    FlatAst(String filename, byte[] kinds, int[] lines, int[] ends, int[] names,
+            int[] extraNodes, int[] extras, String[] strings) {
+        this.filename = filename;
+        this.kinds = kinds;
+        this.lines = lines;
+        this.ends = ends;
+        this.names = names;
+        this.extraNodes = extraNodes;
+        this.extras = extras;
+        this.strings = strings;
+        size = kinds.length;
+        extraCount = extras.length;
+    }
+
+    /**
+     * builds the flat form of an AST, without recursion, so that any AST
+     * the Parser builds can be flattened. The body of a LazyMethod is
+     * parsed, since it is part of the flat form.
+     *
+     * @param program the root of the AST
+     * @param filename the name of the file the AST is of, which is the
+     *                 file name of all its classes
+     * @return the flat form of the AST
+     */
+    public static FlatAst of(Program program, String filename) {
+        Builder builder = new Builder(filename, program.getLineNum());
+        for (ASTNode aClass : program.getClassList()) {
+            builder.addClass((Class_) aClass);
+        }
+        FlatAst ast = builder.build();
+        ast.lines[1] = program.getClassList().getLineNum();
+        return ast;
+    }
+
+    /**
+     * Builds a FlatAst class by class, so that the nodes of a class can be
+     * dropped as soon as it is added (see Parser.parseFlat).
+     */
+    public static class Builder
+    {
+        private final FlatAst ast;
+        private final Map<String, Integer> stringIndexes = new HashMap<>();
+        private final Flattener flattener = new Flattener();
+        private int[] open = new int[64]; // the nodes entered and not left
+        private int depth;
+
+        /**
+         * starts a FlatAst with a Program and an empty ClassList
+         *
+         * @param filename the name of the file the AST is of
+         * @param line the line number of the Program and its ClassList
+         */
+        public Builder(String filename, int line) {
+            ast = new FlatAst(filename);
+            ast.add(Kind.PROGRAM, line, NONE, NONE);
+            ast.add(Kind.CLASS_LIST, line, NONE, NONE);
+        }
+
+        /**
+         * adds a class and the nodes below it after the classes added
+         * before, without recursion
+         *
+         * @param aClass the class
+         */
+        public void addClass(Class_ aClass) {
+            flattener.traverse(aClass);
+        }
+
+        /**
+         * ends the Program; no more classes can be added after that
+         *
+         * @return the FlatAst with the classes added
+         */
+        public FlatAst build() {
+            ast.ends[0] = ast.size;
+            ast.ends[1] = ast.size;
+            ast.trim();
+            return ast;
+        }
+
+        /** adds the nodes of a class to the FlatAst as it visits them */
+        private class Flattener extends StackVisitor
+        {
+            private final String[] nodeNames = new String[2];
+
+            @Override
+            protected boolean enter(ASTNode node) {
+                Kind kind = Kind.of(node);
+                int flags = attributesOf(kind, node, nodeNames);
+                int extra = nodeNames[1] != null ? indexOf(nodeNames[1]) : flags;
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                }
+                open[depth++] = ast.add(kind, node.getLineNum(),
+                        indexOf(nodeNames[0]), extra);
+                return true;
+            }
+
+            @Override
+            protected void leave(ASTNode node) {
+                ast.ends[open[--depth]] = ast.size;
+            }
+        }
+
+        /**
+         * @return the index of the string in the table, adding it if it
+         * is not there yet, or NONE for null
+         */
+        private int indexOf(String string) {
+            if (string == null) {
+                return NONE;
+            }
+            Integer index = stringIndexes.get(string);
+            if (index == null) {
+                index = stringIndexes.size();
+                stringIndexes.put(string, index);
+                if (index == ast.strings.length) {
+                    ast.strings = Arrays.copyOf(ast.strings, index * 2);
+                }
+                ast.strings[index] = string;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * finds what a node holds besides its line number and its children,
+     * as a FlatAst keeps it
+     *
+     * @param kind the kind of the node
+     * @param node the node
+     * @param names gets the node's name (see name()) and its second name
+     *              (see secondName()), either of which may be null
+     * @return the node's flags (see flags()), or NONE if its kind has none
+     */
+    static int attributesOf(Kind kind, ASTNode node, String[] names) {
+        names[0] = null;
+        names[1] = null;
+        switch (kind) {
+            case CLASS -> {
+                names[0] = ((Class_) node).getName();
+                names[1] = ((Class_) node).getParent();
+            }
+            case FIELD -> {
+                names[0] = ((Field) node).getName();
+                names[1] = ((Field) node).getType();
+            }
+            case METHOD -> {
+                names[0] = ((Method) node).getName();
+                names[1] = ((Method) node).getReturnType();
+            }
+            case FORMAL -> {
+                names[0] = ((Formal) node).getName();
+                names[1] = ((Formal) node).getType();
+            }
+            case DECL_STMT -> names[0] = ((DeclStmt) node).getName();
+            case FOR_STMT -> {
+                ForStmt forStmt = (ForStmt) node;
+                return (forStmt.getInitExpr() != null ? FOR_INIT : 0) |
+                        (forStmt.getPredExpr() != null ? FOR_PRED : 0) |
+                        (forStmt.getUpdateExpr() != null ? FOR_UPDATE : 0);
+            }
+            case DISPATCH_EXPR -> names[0] = ((DispatchExpr) node).getMethodName();
+            case NEW_EXPR -> names[0] = ((NewExpr) node).getType();
+            case INSTANCEOF_EXPR -> names[0] = ((InstanceofExpr) node).getType();
+            case CAST_EXPR -> names[0] = ((CastExpr) node).getType();
+            case ASSIGN_EXPR -> {
+                names[0] = ((AssignExpr) node).getName();
+                names[1] = ((AssignExpr) node).getRefName();
+            }
+            case VAR_EXPR -> names[0] = ((VarExpr) node).getName();
+            case INCR_EXPR, DECR_EXPR -> {
+                return ((UnaryExpr) node).isPostfix() ? POSTFIX : 0;
+            }
+            case CONST_INT_EXPR, CONST_BOOLEAN_EXPR, CONST_STRING_EXPR ->
+                    names[0] = ((ConstExpr) node).getConstant();
+            default -> {
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * appends a node, growing the arrays when they are full
+     *
+     * @return the number of the node
+     */
+    private int add(Kind kind, int line, int name, int extra) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        lines[size] = line;
+        names[size] = name;
+        if (extra != NONE) {
+            if (extraCount == extras.length) {
+                extraNodes = Arrays.copyOf(extraNodes, extraCount * 2);
+                extras = Arrays.copyOf(extras, extraCount * 2);
+            }
+            extraNodes[extraCount] = size;
+            extras[extraCount++] = extra;
+        }
+        return size++;
+    }
+
+    /** cuts the arrays to the number of nodes and strings */
+    private void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        lines = Arrays.copyOf(lines, size);
+        ends = Arrays.copyOf(ends, size);
+        names = Arrays.copyOf(names, size);
+        extraNodes = Arrays.copyOf(extraNodes, extraCount);
+        extras = Arrays.copyOf(extras, extraCount);
+        int count = 0;
+        while (count < strings.length && strings[count] != null) {
+            count++;
+        }
+        strings = Arrays.copyOf(strings, count);
+    }
+
+    /**
+     * @return the name of the file the AST is of
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * @return the number of nodes; they are numbered from 0, the Program
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param node the number of a node
+     * @return its kind
+     */
+    public Kind kind(int node) {
+        return Kind.KINDS[kinds[node]];
+    }
+
+    /**
+     * @param node the number of a node
+     * @return its line number
+     */
+    public int line(int node) {
+        return lines[node];
+    }
+
+    /**
+     * @param node the number of a node
+     * @return the number just past its last descendant, which is the
+     * number of its next sibling if it has one
+     */
+    public int end(int node) {
+        return ends[node];
+    }
+
+    /**
+     * @param node the number of a node
+     * @return the number of its first child, or NONE if it has none
+     */
+    public int firstChild(int node) {
+        return ends[node] > node + 1 ? node + 1 : NONE;
+    }
+
+    /**
+     * @param node the number of a node
+     * @return how many children it has
+     */
+    public int childCount(int node) {
+        int count = 0;
+        for (int child = node + 1; child < ends[node]; child = ends[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param node the number of a node
+     * @return its name: the name of a class, member, formal, variable or
+     * called method, the type of a "new", "instanceof" or cast, or the
+     * text of a constant; null if the kind has none
+     */
+    public String name(int node) {
+        return names[node] == NONE ? null : strings[names[node]];
+    }
+
+    /**
+     * @param node the number of a node
+     * @return the index of its name in the table of names, which is the
+     * same for equal names, or NONE
+     */
+    public int nameIndex(int node) {
+        return names[node];
+    }
+
+    /**
+     * @param node the number of a node
+     * @return its second name: the parent of a CLASS, the type of a FIELD
+     * or FORMAL, the return type of a METHOD, or the reference of an
+     * ASSIGN_EXPR; null if it has none
+     */
+    public String secondName(int node) {
+        Kind kind = kind(node);
+        if (kind == Kind.FOR_STMT || kind == Kind.INCR_EXPR ||
+                kind == Kind.DECR_EXPR || extra(node) == NONE) {
+            return null;
+        }
+        return strings[extra(node)];
+    }
+
+    /**
+     * @param node the number of a node
+     * @return the flags of a FOR_STMT (FOR_INIT, FOR_PRED, FOR_UPDATE) or
+     * of an INCR_EXPR or DECR_EXPR (POSTFIX); 0 for the other kinds
+     */
+    public int flags(int node) {
+        Kind kind = kind(node);
+        if (kind != Kind.FOR_STMT && kind != Kind.INCR_EXPR &&
+                kind != Kind.DECR_EXPR || extra(node) == NONE) {
+            return 0;
+        }
+        return extra(node);
+    }
+
+    /**
+     * @return the second name or flags of the node, or NONE if it has none
+     */
+    private int extra(int node) {
+        int index = Arrays.binarySearch(extraNodes, 0, extraCount, node);
+        return index < 0 ? NONE : extras[index];
+    }
+
+    /**
+     * @return the number of distinct names and constants
+     */
+    public int nameCount() {
+        return strings.length;
+    }
+
+    /**
+     * @param index an index in the table of names
+     * @return the name with that index
+     */
+    public String nameAt(int index) {
+        return strings[index];
+    }
+
+    /**
+     * @return a Cursor at the Program
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Moves over the nodes of the FlatAst from parent to child and from
+     * sibling to sibling, keeping the path from the node it started at.
+     * To go through all the nodes below that node, next() is the fastest
+     * way: it moves along the arrays in visit order, and the path is only
+     * found again when one of the other moves, or depth(), needs it.
+     */
+    public class Cursor
+    {
+        private int node;
+        private int end;      // just past the last node below the one it started at
+        private int pathNode; // the node the path is of
+        // the path: the ancestors of pathNode, up to the node it started at
+        private int[] ancestors = new int[32];
+        private int depth;
+
+        private Cursor() {
+            end = size;
+        }
+
+        /**
+         * moves the cursor to the given node, which it can't then leave
+         * for its parent
+         *
+         * @param node the number of a node
+         */
+        public void reset(int node) {
+            this.node = node;
+            end = ends[node];
+            depth = 0;
+            pathNode = node;
+        }
+
+        /**
+         * @return the number of the node the cursor is at
+         */
+        public int node() {
+            return node;
+        }
+
+        /**
+         * @return how many times parent() can move the cursor up
+         */
+        public int depth() {
+            findPath();
+            return depth;
+        }
+
+        /**
+         * @return the kind of the node the cursor is at
+         */
+        public Kind kind() {
+            return Kind.KINDS[kinds[node]];
+        }
+
+        /**
+         * @return the line number of the node the cursor is at
+         */
+        public int line() {
+            return lines[node];
+        }
+
+        /**
+         * @return the name of the node the cursor is at, as name() gives it
+         */
+        public String name() {
+            return FlatAst.this.name(node);
+        }
+
+        /**
+         * moves to the first child of the node
+         *
+         * @return false (and the cursor stays) if the node has no children
+         */
+        public boolean firstChild() {
+            if (ends[node] == node + 1) {
+                return false;
+            }
+            findPath();
+            push(node);
+            pathNode = ++node;
+            return true;
+        }
+
+        /**
+         * moves to the next sibling of the node
+         *
+         * @return false (and the cursor stays) if the node is the last
+         * child of its parent, or the node the cursor started at
+         */
+        public boolean nextSibling() {
+            findPath();
+            if (depth == 0 || ends[node] == ends[ancestors[depth - 1]]) {
+                return false;
+            }
+            node = ends[node];
+            pathNode = node;
+            return true;
+        }
+
+        /**
+         * moves to the parent of the node
+         *
+         * @return false (and the cursor stays) at the node it started at
+         */
+        public boolean parent() {
+            findPath();
+            if (depth == 0) {
+                return false;
+            }
+            node = ancestors[--depth];
+            pathNode = node;
+            return true;
+        }
+
+        /**
+         * moves to the next node in the order a Visitor visits them: the
+         * first child of the node if it has one, or else the next sibling
+         * of the node or of its nearest ancestor that has one. That is
+         * simply the next number, so this is a step along the arrays.
+         *
+         * @return false (and the cursor stays) if the node is the last one
+         * below the node the cursor started at
+         */
+        public boolean next() {
+            if (node + 1 >= end) {
+                return false;
+            }
+            node++;
+            return true;
+        }
+
+        /**
+         * makes the path that of the node the cursor is at, after next()
+         * moved it on: up from pathNode to the nearest node that has the
+         * cursor's node below it, and down from there
+         */
+        private void findPath() {
+            if (pathNode == node) {
+                return;
+            }
+            int at = pathNode;
+            while (ends[at] <= node) {
+                at = ancestors[--depth];
+            }
+            while (at != node) {
+                push(at);
+                at++; // its first child
+                while (ends[at] <= node) {
+                    at = ends[at];
+                }
+            }
+            pathNode = node;
+        }
+
+        /**
+         * adds the node to the path
+         */
+        private void push(int node) {
+            if (depth == ancestors.length) {
+                ancestors = Arrays.copyOf(ancestors, depth * 2);
+            }
+            ancestors[depth++] = node;
+        }
+    }
+
+    /**
+     * @return the whole AST as bantam.ast nodes
+     */
+    public Program toProgram() {
+        return (Program) toNode(0);
+    }
+
+    /**
+     * makes the whole AST as bantam.ast nodes, sharing the subtrees the
+     * interner shares; see AstInterner
+     *
+     * @param interner the nodes to share, which may come from other ASTs
+     * @return the root of the AST
+     */
+    public Program toProgram(AstInterner interner) {
+        return (Program) toNode(0, interner);
+    }
+
+    /**
+     * makes the bantam.ast nodes of the subtree at the given node, as the
+     * Parser would have built them. The nodes are made last to first, so
+     * the children of each node are made before it, without recursion.
+     *
+     * @param root the number of a node
+     * @return the node, with its descendants
+     */
+    public ASTNode toNode(int root) {
+        return toNode(root, null);
+    }
+
+    /**
+     * makes the bantam.ast nodes of the subtree at the given node, taking
+     * the nodes the interner shares from it
+     *
+     * @param root the number of a node
+     * @param interner the nodes to share, or null to share none
+     * @return the node, with its descendants
+     */
+    public ASTNode toNode(int root, AstInterner interner) {
+        ASTNode[] made = new ASTNode[ends[root] - root];
+        for (int node = ends[root] - 1; node >= root; node--) {
+            made[node - root] = make(node, made, root, interner);
+        }
+        return made[0];
+    }
+
+    /**
+     * @param node the number of the node to make
+     * @param made the nodes made so far, from root on
+     * @param root the number of the first node in made
+     * @param interner the nodes to share, or null
+     * @return the node, with the children already made, or the node the
+     * interner has in its place
+     */
+    private ASTNode make(int node, ASTNode[] made, int root, AstInterner interner) {
+        int count = childCount(node);
+        ASTNode[] children = new ASTNode[count];
+        for (int i = 0, child = node + 1; i < count; i++, child = ends[child]) {
+            children[i] = made[child - root];
+        }
+        if (interner == null) {
+            return build(node, children);
+        }
+        AstInterner.Key key = interner.keyOf(kind(node), name(node),
+                secondName(node), flags(node), children);
+        if (key == null) {
+            return build(node, children);
+        }
+        ASTNode shared = interner.get(key);
+        if (shared == null) {
+            shared = build(node, children);
+            interner.put(key, shared);
+        }
+        return shared;
+    }
+
+    /**
+     * @param node the number of the node to make
+     * @param children its children, already made
+     * @return the node
+     */
+    private ASTNode build(int node, ASTNode[] children) {
+        int line = lines[node];
+        String name = name(node);
+        int count = children.length;
+        switch (kind(node)) {
+            case PROGRAM:
+                return new Program(line, (ClassList) children[0]);
+            case CLASS_LIST:
+                return fill(new ClassList(line), children);
+            case CLASS:
+                return new Class_(line, filename, name, secondName(node),
+                        (MemberList) children[0]);
+            case MEMBER_LIST:
+                return fill(new MemberList(line), children);
+            case FIELD:
+                return new Field(line, secondName(node), name,
+                        count > 0 ? (Expr) children[0] : null);
+            case METHOD:
+                return new Method(line, secondName(node), name,
+                        (FormalList) children[0], (StmtList) children[1]);
+            case FORMAL_LIST:
+                return fill(new FormalList(line), children);
+            case FORMAL:
+                return new Formal(line, secondName(node), name);
+            case STMT_LIST:
+                return fill(new StmtList(line), children);
+            case DECL_STMT:
+                return new DeclStmt(line, name, (Expr) children[0]);
+            case EXPR_STMT:
+                return new ExprStmt(line, (Expr) children[0]);
+            case IF_STMT:
+                return new IfStmt(line, (Expr) children[0], (Stmt) children[1],
+                        count > 2 ? (Stmt) children[2] : null);
+            case WHILE_STMT:
+                return new WhileStmt(line, (Expr) children[0], (Stmt) children[1]);
+            case FOR_STMT: {
+                int flags = flags(node);
+                int next = 0;
+                Expr init = (flags & FOR_INIT) != 0 ? (Expr) children[next++] : null;
+                Expr pred = (flags & FOR_PRED) != 0 ? (Expr) children[next++] : null;
+                Expr update = (flags & FOR_UPDATE) != 0 ? (Expr) children[next++] : null;
+                return new ForStmt(line, init, pred, update, (Stmt) children[next]);
+            }
+            case BREAK_STMT:
+                return new BreakStmt(line);
+            case BLOCK_STMT:
+                return new BlockStmt(line, (StmtList) children[0]);
+            case RETURN_STMT:
+                return new ReturnStmt(line, count > 0 ? (Expr) children[0] : null);
+            case EXPR_LIST:
+                return fill(new ExprList(line), children);
+            case DISPATCH_EXPR:
+                return new DispatchExpr(line, count > 1 ? (Expr) children[0] : null,
+                        name, (ExprList) children[count - 1]);
+            case NEW_EXPR:
+                return new NewExpr(line, name);
+            case INSTANCEOF_EXPR:
+                return new InstanceofExpr(line, (Expr) children[0], name);
+            case CAST_EXPR:
+                return new CastExpr(line, name, (Expr) children[0]);
+            case ASSIGN_EXPR:
+                return new AssignExpr(line, secondName(node), name, (Expr) children[0]);
+            case VAR_EXPR:
+                return new VarExpr(line, count > 0 ? (Expr) children[0] : null, name);
+            case PLUS_EXPR:
+                return new BinaryArithPlusExpr(line, (Expr) children[0], (Expr) children[1]);
+            case MINUS_EXPR:
+                return new BinaryArithMinusExpr(line, (Expr) children[0], (Expr) children[1]);
+            case TIMES_EXPR:
+                return new BinaryArithTimesExpr(line, (Expr) children[0], (Expr) children[1]);
+            case DIVIDE_EXPR:
+                return new BinaryArithDivideExpr(line, (Expr) children[0], (Expr) children[1]);
+            case MODULUS_EXPR:
+                return new BinaryArithModulusExpr(line, (Expr) children[0], (Expr) children[1]);
+            case EQ_EXPR:
+                return new BinaryCompEqExpr(line, (Expr) children[0], (Expr) children[1]);
+            case NE_EXPR:
+                return new BinaryCompNeExpr(line, (Expr) children[0], (Expr) children[1]);
+            case LT_EXPR:
+                return new BinaryCompLtExpr(line, (Expr) children[0], (Expr) children[1]);
+            case LEQ_EXPR:
+                return new BinaryCompLeqExpr(line, (Expr) children[0], (Expr) children[1]);
+            case GT_EXPR:
+                return new BinaryCompGtExpr(line, (Expr) children[0], (Expr) children[1]);
+            case GEQ_EXPR:
+                return new BinaryCompGeqExpr(line, (Expr) children[0], (Expr) children[1]);
+            case AND_EXPR:
+                return new BinaryLogicAndExpr(line, (Expr) children[0], (Expr) children[1]);
+            case OR_EXPR:
+                return new BinaryLogicOrExpr(line, (Expr) children[0], (Expr) children[1]);
+            case NEG_EXPR:
+                return new UnaryNegExpr(line, (Expr) children[0]);
+            case NOT_EXPR:
+                return new UnaryNotExpr(line, (Expr) children[0]);
+            case INCR_EXPR:
+                return new UnaryIncrExpr(line, (Expr) children[0], flags(node) == POSTFIX);
+            case DECR_EXPR:
+                return new UnaryDecrExpr(line, (Expr) children[0], flags(node) == POSTFIX);
+            case CONST_INT_EXPR:
+                return new ConstIntExpr(line, name);
+            case CONST_BOOLEAN_EXPR:
+                return new ConstBooleanExpr(line, name);
+            default: // CONST_STRING_EXPR
+                return new ConstStringExpr(line, name);
+        }
+    }
+
+    /**
+     * @return the list with the given elements added, frozen as the
+     * Parser leaves it
+     */
+    private static ListNode fill(ListNode list, ASTNode[] elements) {
+        for (ASTNode element : elements) {
+            list.addElement(element);
+        }
+        return list.freeze();
+    }
+}
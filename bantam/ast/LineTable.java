@@ -0,0 +1,47 @@
+/*
+ * File: LineTable.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.ast;
+
+import java.util.Arrays;
+
+/**
+ * The line numbers of an AST whose nodes may be shared (see AstInterner),
+ * kept apart from the nodes since a shared node is at several places
+ * with different lines. The places are numbered in the order a
+ * StackVisitor or Visitor goes through them, which goes through a shared
+ * node once for each place it is at, starting with the Program at 0;
+ * these are the numbers of the nodes of the FlatAst the AST was made from.
+ */
+public class LineTable
+{
+    private final int[] lines;
+
+    /**
+     * keeps the lines of the nodes of the FlatAst
+     *
+     * @param ast the flat form of the AST
+     */
+    public LineTable(FlatAst ast) {
+        lines = Arrays.copyOf(ast.lines, ast.size);
+    }
+
+    /**
+     * @return the number of places
+     */
+    public int size() {
+        return lines.length;
+    }
+
+    /**
+     * @param place the number of a place in the AST
+     * @return the line of the node there
+     */
+    public int line(int place) {
+        return lines[place];
+    }
+}
@@ -32,24 +32,49 @@
 
 package proj8BogatyrevDimitrovWang.bantam.ast;
 
+import proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor;
+import proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor;
 import proj8BogatyrevDimitrovWang.bantam.visitor.Visitor;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Vector;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * The abstract <tt>ListNode</tt> class represents a generic list of AST
  * nodes.  It contains a line number (<tt>lineNum</tt>) and a list
  * (<tt>listElements</tt>).
  *
+ * The elements are kept in an array without any locking, since a list is
+ * built by one thread. An empty list shares one empty array, and the
+ * array only grows as elements are added. Once the list is built,
+ * freeze() cuts the array to the exact number of elements and makes the
+ * list read-only, so that it can be shared by threads.
+ *
  * @see ASTNode
  */
 public abstract class ListNode extends ASTNode
     implements Iterable<ASTNode> {
     /**
-     * List of ASTNode elements
+     * the array of every list that has no elements yet
+     */
+    private static final ASTNode[] EMPTY = new ASTNode[0];
+
+    /**
+     * List of ASTNode elements, in the first <tt>size</tt> slots
+     */
+    private ASTNode[] listElements;
+
+    /**
+     * Number of elements in the list
+     */
+    private int size;
+
+    /**
+     * Whether the list is read-only
      */
-    private Vector<ASTNode> listElements;
+    private boolean frozen;
 
     /**
      * ListNode constructor
@@ -58,7 +83,7 @@ public abstract class ListNode extends ASTNode
      */
     protected ListNode(int lineNum) {
         super(lineNum);
-        listElements = new Vector<ASTNode>();
+        listElements = EMPTY;
     }
 
     /**
@@ -66,19 +91,84 @@ public abstract class ListNode extends ASTNode
      *
      * @param node element to add
      * @return the updated list
+     * @throws java.lang.UnsupportedOperationException if the list is frozen
      */
     public ListNode addElement(ASTNode node) {
-        listElements.add(node);
+        checkNotFrozen();
+        if (size == listElements.length) {
+            // most lists have one or two elements
+            listElements = Arrays.copyOf(listElements, Math.max(2, size * 2));
+        }
+        listElements[size++] = node;
+        return this;
+    }
+
+    /**
+     * Replace the index-th element
+     *
+     * @param index the index of the element to replace
+     * @param node the new element
+     * @return the element that was replaced
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the index is
+     *         too large or too small
+     * @throws java.lang.UnsupportedOperationException if the list is frozen
+     */
+    public ASTNode set(int index, ASTNode node) {
+        checkNotFrozen();
+        ASTNode old = get(index);
+        listElements[index] = node;
+        return old;
+    }
+
+    /**
+     * Makes the list read-only, with an array of exactly its size.
+     * Freezing a frozen list does nothing.
+     *
+     * @return this list
+     */
+    public ListNode freeze() {
+        if (!frozen) {
+            if (listElements.length != size) {
+                listElements = size == 0 ? EMPTY : Arrays.copyOf(listElements, size);
+            }
+            frozen = true;
+        }
         return this;
     }
 
     /**
-     * Returns an iterator for this list
+     * @return whether the list is read-only
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The list is frozen.");
+        }
+    }
+
+    /**
+     * Returns an iterator for this list, which does not support remove()
      *
      * @return iterator for this list
      */
     public Iterator<ASTNode> iterator() {
-        return listElements.iterator();
+        return new Iterator<ASTNode>() {
+            private int next = 0;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public ASTNode next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return listElements[next++];
+            }
+        };
     }
 
     /**
@@ -87,7 +177,7 @@ public abstract class ListNode extends ASTNode
      * @return list size
      */
     public int getSize() {
-        return listElements.size();
+        return size;
     }
 
     /**
@@ -98,7 +188,22 @@ public abstract class ListNode extends ASTNode
      *         too large or too small
      */
     public ASTNode get(int index) {
-        return listElements.get(index);
+        if (index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return listElements[index];
+    }
+
+    /**
+     * Add the children of this node to the list, in the order the
+     * Visitor visits them
+     *
+     * @param children the list to add the children to
+     */
+    public void addChildrenTo(List<ASTNode> children) {
+        for (int i = 0; i < size; i++) {
+            children.add(listElements[i]);
+        }
     }
 
     /**
@@ -109,4 +214,24 @@ public abstract class ListNode extends ASTNode
      * @see proj8BogatyrevDimitrovWang.bantam.visitor.Visitor
      */
     abstract public Object accept(Visitor v);
+
+    /**
+     * TypedVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.TypedVisitor
+     */
+    abstract public <R, C> R accept(TypedVisitor<R, C> v, C context);
+
+    /**
+     * IntVisitor method
+     *
+     * @param v bantam.visitor object
+     * @param context the context of the visit
+     * @return result of visiting this node
+     * @see proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor
+     */
+    abstract public <C> int accept(IntVisitor<C> v, C context);
 }
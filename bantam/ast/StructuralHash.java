@@ -0,0 +1,160 @@
+/*
+ * File: StructuralHash.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.ast;
+
+import proj8BogatyrevDimitrovWang.bantam.visitor.StackVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Computes structural hashes of subtrees: the hash of a node depends only
+ * on its kind, on what it holds besides its line number (its names,
+ * types, constant or flags, as a FlatAst keeps them) and on the hashes of
+ * its children, in order. So identical subtrees have the same hash
+ * wherever they are, and a subtree whose hash did not change from one
+ * build to the next almost surely did not change either. The hashes only
+ * depend on strings' hash codes and the order of FlatAst.Kind, so they
+ * are the same from one run to the next.
+ *
+ * The hash of each node is kept in the node once computed, so it is
+ * computed only once, and hashing a tree whose subtrees were hashed
+ * before only goes through the new nodes. The AST must not be changed once
+ * hashed; the Parser's ASTs are not (their lists are frozen). The nodes
+ * are gone through without recursion, so deep ASTs can be hashed too.
+ */
+public class StructuralHash extends StackVisitor
+{
+    private final String[] nodeNames = new String[2];
+    // the nodes being hashed, each with the hash so far of its children and
+    // the number of them
+    private ASTNode[] open = new ASTNode[16];
+    private int[] childHashes = new int[16];
+    private int[] childCounts = new int[16];
+    private int depth;
+
+    private StructuralHash() {
+    }
+
+    /**
+     * returns the structural hash of the subtree at the node, computing
+     * and keeping the hashes of the nodes below it that do not have one
+     *
+     * @param node the root of the subtree
+     * @return its hash, which is never 0
+     */
+    public static int of(ASTNode node) {
+        if (node.structuralHash == 0) {
+            new StructuralHash().traverse(node);
+        }
+        return node.structuralHash;
+    }
+
+    /**
+     * tells whether two subtrees are the same apart from the line numbers.
+     * Subtrees with different hashes are not; for those with the same hash
+     * the nodes are compared, except for the subtrees they share.
+     *
+     * @param a the root of a subtree, or null
+     * @param b the root of another subtree, or null
+     * @return whether they are the same
+     */
+    public static boolean equal(ASTNode a, ASTNode b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || of(a) != of(b)) {
+            return false;
+        }
+        // one for each side, since each reuses its list of children
+        StructuralHash hashX = new StructuralHash();
+        StructuralHash hashY = new StructuralHash();
+        List<ASTNode> pairs = new ArrayList<>();
+        pairs.add(a);
+        pairs.add(b);
+        while (!pairs.isEmpty()) {
+            ASTNode y = pairs.remove(pairs.size() - 1);
+            ASTNode x = pairs.remove(pairs.size() - 1);
+            if (x == y) {
+                continue;
+            }
+            FlatAst.Kind kind = FlatAst.Kind.of(x);
+            if (x.structuralHash != y.structuralHash || kind != FlatAst.Kind.of(y) ||
+                    FlatAst.attributesOf(kind, x, hashX.nodeNames) !=
+                            FlatAst.attributesOf(kind, y, hashY.nodeNames) ||
+                    !Arrays.equals(hashX.nodeNames, hashY.nodeNames)) {
+                return false;
+            }
+            List<ASTNode> xChildren = hashX.childrenOf(x);
+            List<ASTNode> yChildren = hashY.childrenOf(y);
+            if (xChildren.size() != yChildren.size()) {
+                return false;
+            }
+            for (int i = 0; i < xChildren.size(); i++) {
+                pairs.add(xChildren.get(i));
+                pairs.add(yChildren.get(i));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean enter(ASTNode node) {
+        if (node.structuralHash != 0) {
+            return false; // leave() adds its hash to its parent's
+        }
+        if (depth == open.length) {
+            open = Arrays.copyOf(open, depth * 2);
+            childHashes = Arrays.copyOf(childHashes, depth * 2);
+            childCounts = Arrays.copyOf(childCounts, depth * 2);
+        }
+        open[depth] = node;
+        childHashes[depth] = 0;
+        childCounts[depth++] = 0;
+        return true;
+    }
+
+    @Override
+    protected void leave(ASTNode node) {
+        if (depth > 0 && open[depth - 1] == node) {
+            depth--;
+            open[depth] = null;
+            node.structuralHash = hash(node, childHashes[depth], childCounts[depth]);
+        }
+        if (depth > 0) {
+            childHashes[depth - 1] = childHashes[depth - 1] * 31 + node.structuralHash;
+            childCounts[depth - 1]++;
+        }
+    }
+
+    /**
+     * @param node a node
+     * @param childHash the hashes of its children, combined
+     * @param childCount the number of its children
+     * @return the node's hash, never 0
+     */
+    private int hash(ASTNode node, int childHash, int childCount) {
+        FlatAst.Kind kind = FlatAst.Kind.of(node);
+        int flags = FlatAst.attributesOf(kind, node, nodeNames);
+        int hash = kind.ordinal();
+        hash = hash * 31 + Objects.hashCode(nodeNames[0]);
+        hash = hash * 31 + Objects.hashCode(nodeNames[1]);
+        hash = hash * 31 + flags;
+        hash = hash * 31 + childCount;
+        hash = hash * 31 + childHash;
+        // spreads the bits, so that similar trees get quite different hashes
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash != 0 ? hash : 1;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * File: BufferedSourceFile.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A SourceFile that reads its characters from the underlying Reader a block
+ * at a time into a reusable char buffer, instead of making one read() call
+ * per character.
+ *
+ * Line numbers are not updated character by character. Instead, the line
+ * terminators between the last query and the current position are counted
+ * in one pass whenever the line number is asked for (and before a block is
+ * overwritten by the next one), which gives the same numbers as SourceFile.
+ */
+class BufferedSourceFile extends SourceFile
+{
+    /** the size of the char buffer if none is given */
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final char[] buffer;   // the current block of characters
+    private int position;          // index of the next character to return
+    private int limit;             // number of valid characters in the buffer
+    private int countedTo;         // buffer index up to which lines were counted
+    private int lineNumber;        // line number as of buffer[countedTo - 1]
+    private boolean lastWasCR;     // whether the last counted char was a CR
+    private boolean atEnd;         // whether the reader has been exhausted
+
+    /**
+     * creates a new BufferedSourceFile for the file with the given name
+     *
+     * @param filename the name of the file to be read.
+     */
+    BufferedSourceFile(String filename) {
+        this(openFile(filename), filename, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * creates a new BufferedSourceFile for the given Reader
+     *
+     * @param in the Reader that provides the characters to be processed
+     */
+    BufferedSourceFile(Reader in) {
+        this(in, null, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * creates a new BufferedSourceFile for the given Reader
+     *
+     * @param in the Reader that provides the characters to be processed
+     * @param filename the name of the file being read, or null
+     * @param bufferSize the number of characters to read at a time
+     */
+    BufferedSourceFile(Reader in, String filename, int bufferSize) {
+        super(in, filename);
+        buffer = new char[bufferSize];
+        lineNumber = 1;
+    }
+
+    /**
+     * creates a new BufferedSourceFile that reads chars[start..end) straight
+     * out of the given array, without a Reader.
+     *
+     * @param chars the characters of the source
+     * @param start the index of the first character to read
+     * @param end the index just past the last character to read
+     * @param firstLine the line number of chars[start]
+     * @param filename the name of the file the characters came from, or null
+     */
+    BufferedSourceFile(char[] chars, int start, int end, int firstLine,
+                       String filename) {
+        super(null, filename);
+        buffer = chars;
+        position = start;
+        limit = end;
+        countedTo = start;
+        lineNumber = firstLine;
+        // an LF right after a CR that precedes the range doesn't start a line
+        lastWasCR = start > 0 && chars[start - 1] == CR;
+        atEnd = true;
+    }
+
+    @Override
+    int getCurrentLineNumber() {
+        countLines(position);
+        return lineNumber;
+    }
+
+    /**
+     * Finds and returns the next character in the source file.
+     *
+     * @return the next character in the source file, or EOF at the end
+     */
+    @Override
+    char getNextChar() throws IOException {
+        if (position < limit) {
+            return buffer[position++];
+        }
+        return fill();
+    }
+
+    /**
+     * counts the line terminators in buffer[countedTo..end)
+     *
+     * @param end the buffer index to count up to (exclusive)
+     */
+    private void countLines(int end) {
+        int lines = lineNumber;
+        boolean cr = lastWasCR;
+        for (int i = countedTo; i < end; i++) {
+            char c = buffer[i];
+            if (c == CR) {
+                lines++;
+                cr = true;
+            }
+            else {
+                if (c == EOL && !cr) {
+                    lines++;
+                }
+                cr = false;
+            }
+        }
+        lineNumber = lines;
+        lastWasCR = cr;
+        countedTo = end;
+    }
+
+    /**
+     * reads the next block of characters into the buffer and returns
+     * the first one, or EOF if the reader is exhausted
+     *
+     * @return the next character in the source file
+     */
+    private char fill() throws IOException {
+        if (atEnd) {
+            return EOF;
+        }
+        // the old block is about to be overwritten, so finish counting it
+        countLines(limit);
+        int n;
+        do {
+            n = sourceReader.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        position = 0;
+        limit = 0;
+        countedTo = 0;
+        if (n < 0) {
+            atEnd = true;
+            sourceReader.close();
+            // mirror SourceFile: no line break can be pending after EOF
+            lastWasCR = false;
+            return EOF;
+        }
+        limit = n;
+        return buffer[position++];
+    }
+}
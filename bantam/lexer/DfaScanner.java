@@ -0,0 +1,677 @@
+/*
+ * File: DfaScanner.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
+import proj8BogatyrevDimitrovWang.bantam.util.Error;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A table-driven alternative to Scanner that produces exactly the same
+ * Tokens and errors.
+ *
+ * Every character is mapped to a character class through a precomputed
+ * table, and the token is recognized by following a precomputed DFA
+ * transition table (state x class) for as long as there is a transition,
+ * which gives the longest match. The state the DFA stops in decides what
+ * kind of token (or error) was found. The few checks that are not about
+ * the shape of the token (integer range, string length, strings spanning
+ * lines) are made once the token is complete.
+ *
+ * Since everything the DFA knows about a half-scanned token is its state
+ * and the characters collected so far, the scanner can also be driven in
+ * push mode (see StreamingLexer): characters are handed to push() in
+ * chunks of any size, and tokens are passed to a consumer as they are
+ * completed, even when a token started in an earlier chunk.
+ */
+public class DfaScanner implements Lexer
+{
+    // character classes
+    static final int C_OTHER = 0;      // anything that can't start a token
+    static final int C_BLANK = 1;      // ' ' and '\t'
+    static final int C_EOL = 2;        // '\n'
+    static final int C_CR = 3;         // '\r'
+    static final int C_LETTER = 4;     // letters other than n, t and f
+    static final int C_ESC_LETTER = 5; // n, t and f, which can be escaped
+    static final int C_DIGIT = 6;
+    static final int C_UNDERSCORE = 7;
+    static final int C_QUOTE = 8;
+    static final int C_BACKSLASH = 9;
+    static final int C_SLASH = 10;
+    static final int C_STAR = 11;
+    static final int C_PLUS = 12;
+    static final int C_MINUS = 13;
+    static final int C_EQUALS = 14;
+    static final int C_BANG = 15;
+    static final int C_LESS_GREATER = 16;
+    static final int C_AMP = 17;
+    static final int C_BAR = 18;
+    static final int C_PUNCT = 19;     // { } ( ) . ; : , %
+    static final int C_EOF = 20;
+    static final int NUM_CLASSES = 21;
+
+    // DFA states; DEAD means there is no transition
+    static final int DEAD = 0;
+    static final int S_START = 1;
+    static final int S_IDENT = 2;
+    static final int S_INT = 3;
+    static final int S_PUNCT = 4;        // single character symbols
+    static final int S_PLUS = 5;
+    static final int S_MINUS = 6;
+    static final int S_INCR = 7;
+    static final int S_DECR = 8;
+    static final int S_ASSIGN = 9;
+    static final int S_NOT = 10;
+    static final int S_COMPARE = 11;     // < and >
+    static final int S_COMPARE2 = 12;    // ==, !=, <= and >=
+    static final int S_AMP = 13;         // a single &
+    static final int S_BAR = 14;         // a single |
+    static final int S_LOGIC = 15;
+    static final int S_SLASH = 16;
+    static final int S_LINE_COMMENT = 17;
+    static final int S_BLOCK = 18;
+    static final int S_BLOCK_STAR = 19;
+    static final int S_BLOCK_END = 20;
+    static final int S_STR = 21;
+    static final int S_STR_ESC = 22;
+    static final int S_STR_END = 23;
+    static final int S_BAD_STR = 24;     // a string with an illegal escape
+    static final int S_BAD_STR_ESC = 25;
+    static final int S_BAD_STR_END = 26;
+    static final int S_ILLEGAL = 27;
+    static final int NUM_STATES = 28;
+
+    /** the character class of each ASCII character */
+    static final byte[] CHAR_CLASS = new byte[128];
+
+    /** TRANSITIONS[state * NUM_CLASSES + class] is the next state */
+    static final byte[] TRANSITIONS = new byte[NUM_STATES * NUM_CLASSES];
+
+    /** the spelling of each single ASCII character, to avoid allocating one */
+    private static final String[] ONE_CHAR_SPELLINGS = new String[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASS[c] = C_LETTER;
+            CHAR_CLASS[Character.toUpperCase(c)] = C_LETTER;
+        }
+        CHAR_CLASS['n'] = C_ESC_LETTER;
+        CHAR_CLASS['t'] = C_ESC_LETTER;
+        CHAR_CLASS['f'] = C_ESC_LETTER;
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASS[c] = C_DIGIT;
+        }
+        for (char c : "{}().;:,%".toCharArray()) {
+            CHAR_CLASS[c] = C_PUNCT;
+        }
+        CHAR_CLASS[' '] = C_BLANK;
+        CHAR_CLASS['\t'] = C_BLANK;
+        CHAR_CLASS[SourceFile.EOL] = C_EOL;
+        CHAR_CLASS[SourceFile.CR] = C_CR;
+        CHAR_CLASS[SourceFile.EOF] = C_EOF;
+        CHAR_CLASS['_'] = C_UNDERSCORE;
+        CHAR_CLASS['"'] = C_QUOTE;
+        CHAR_CLASS['\\'] = C_BACKSLASH;
+        CHAR_CLASS['/'] = C_SLASH;
+        CHAR_CLASS['*'] = C_STAR;
+        CHAR_CLASS['+'] = C_PLUS;
+        CHAR_CLASS['-'] = C_MINUS;
+        CHAR_CLASS['='] = C_EQUALS;
+        CHAR_CLASS['!'] = C_BANG;
+        CHAR_CLASS['<'] = C_LESS_GREATER;
+        CHAR_CLASS['>'] = C_LESS_GREATER;
+        CHAR_CLASS['&'] = C_AMP;
+        CHAR_CLASS['|'] = C_BAR;
+
+        for (char c = 0; c < 128; c++) {
+            ONE_CHAR_SPELLINGS[c] = String.valueOf(c).intern();
+        }
+
+        // the first character of a token
+        setAll(S_START, S_ILLEGAL);
+        set(S_START, C_BLANK, DEAD);
+        set(S_START, C_EOL, DEAD);
+        set(S_START, C_CR, DEAD);
+        set(S_START, C_EOF, DEAD);
+        set(S_START, C_LETTER, S_IDENT);
+        set(S_START, C_ESC_LETTER, S_IDENT);
+        set(S_START, C_DIGIT, S_INT);
+        set(S_START, C_PUNCT, S_PUNCT);
+        set(S_START, C_STAR, S_PUNCT);
+        set(S_START, C_PLUS, S_PLUS);
+        set(S_START, C_MINUS, S_MINUS);
+        set(S_START, C_EQUALS, S_ASSIGN);
+        set(S_START, C_BANG, S_NOT);
+        set(S_START, C_LESS_GREATER, S_COMPARE);
+        set(S_START, C_AMP, S_AMP);
+        set(S_START, C_BAR, S_BAR);
+        set(S_START, C_SLASH, S_SLASH);
+        set(S_START, C_QUOTE, S_STR);
+
+        // identifiers and integers
+        set(S_IDENT, C_LETTER, S_IDENT);
+        set(S_IDENT, C_ESC_LETTER, S_IDENT);
+        set(S_IDENT, C_DIGIT, S_IDENT);
+        set(S_IDENT, C_UNDERSCORE, S_IDENT);
+        set(S_INT, C_DIGIT, S_INT);
+
+        // two-character operators
+        set(S_PLUS, C_PLUS, S_INCR);
+        set(S_MINUS, C_MINUS, S_DECR);
+        set(S_ASSIGN, C_EQUALS, S_COMPARE2);
+        set(S_NOT, C_EQUALS, S_COMPARE2);
+        set(S_COMPARE, C_EQUALS, S_COMPARE2);
+        set(S_AMP, C_AMP, S_LOGIC);
+        set(S_BAR, C_BAR, S_LOGIC);
+
+        // comments
+        set(S_SLASH, C_SLASH, S_LINE_COMMENT);
+        set(S_SLASH, C_STAR, S_BLOCK);
+        setAll(S_LINE_COMMENT, S_LINE_COMMENT);
+        set(S_LINE_COMMENT, C_EOL, DEAD);
+        set(S_LINE_COMMENT, C_CR, DEAD);
+        set(S_LINE_COMMENT, C_EOF, DEAD);
+        setAll(S_BLOCK, S_BLOCK);
+        set(S_BLOCK, C_STAR, S_BLOCK_STAR);
+        set(S_BLOCK, C_EOF, DEAD);
+        setAll(S_BLOCK_STAR, S_BLOCK);
+        set(S_BLOCK_STAR, C_STAR, S_BLOCK_STAR);
+        set(S_BLOCK_STAR, C_SLASH, S_BLOCK_END);
+        set(S_BLOCK_STAR, C_EOF, DEAD);
+
+        // strings, which move to the "bad" copies of their states
+        // once an illegal escape character has been seen
+        setString(S_STR, S_STR_ESC, S_STR_END);
+        setString(S_BAD_STR, S_BAD_STR_ESC, S_BAD_STR_END);
+        setAll(S_STR_ESC, S_BAD_STR);
+        set(S_STR_ESC, C_ESC_LETTER, S_STR);
+        set(S_STR_ESC, C_QUOTE, S_STR);
+        set(S_STR_ESC, C_BACKSLASH, S_STR);
+        set(S_STR_ESC, C_EOF, DEAD);
+        setAll(S_BAD_STR_ESC, S_BAD_STR);
+        set(S_BAD_STR_ESC, C_EOF, DEAD);
+    }
+
+    private static void set(int state, int charClass, int next) {
+        TRANSITIONS[state * NUM_CLASSES + charClass] = (byte) next;
+    }
+
+    private static void setAll(int state, int next) {
+        for (int c = 0; c < NUM_CLASSES; c++) {
+            set(state, c, next);
+        }
+    }
+
+    private static void setString(int inside, int escape, int end) {
+        setAll(inside, inside);
+        set(inside, C_BACKSLASH, escape);
+        set(inside, C_QUOTE, end);
+        set(inside, C_EOF, DEAD);
+    }
+
+    /**
+     * @param c a character
+     * @return the character class of c
+     */
+    static int classOf(char c) {
+        if (c < 128) {
+            return CHAR_CLASS[c];
+        }
+        // the same tests as Scanner makes
+        if (Character.isAlphabetic(c)) {
+            return C_LETTER;
+        }
+        return Character.isDigit(c) ? C_DIGIT : C_OTHER;
+    }
+
+    /** the source of the characters to be broken into tokens */
+    private final SourceFile sourceFile;
+    /** collector of all errors that occur */
+    private final ErrorHandler errorHandler;
+    /** the first character not yet part of any token */
+    private char currentChar;
+    /** the characters of the token being scanned */
+    private char[] buffer = new char[256];
+    /** the number of characters in buffer */
+    private int length;
+    /** the table identifier spellings are interned in, or null */
+    private final NameTable nameTable;
+    /** the offset of currentChar in the source */
+    private int offset;
+    /** the line number of currentChar */
+    private int line;
+    /** the offset of the first character of currentChar's line */
+    private int lineStart;
+    /** the offset of the last carriage return consumed */
+    private int lastCR;
+    /** the offset, line and column of the token being scanned */
+    private int tokenStart, tokenLine, tokenColumn;
+    /** in push mode, the state of the DFA, which is S_START between tokens */
+    private int pushState = S_START;
+    /** in push mode, whether the end of the input has been reached */
+    private boolean pushEnded;
+
+    /** the largest token buffer kept after a token in push mode */
+    private static final int MAX_IDLE_BUFFER = 1 << 16;
+
+    /**
+     * creates a new scanner for the given file
+     * @param filename the name of the file to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     */
+    public DfaScanner(String filename, ErrorHandler handler) {
+        this(new BufferedSourceFile(filename), handler, null);
+    }
+
+    /**
+     * creates a new scanner for the given Reader
+     * @param reader the Reader providing the characters to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     */
+    public DfaScanner(Reader reader, ErrorHandler handler) {
+        this(reader, handler, null);
+    }
+
+    /**
+     * creates a new scanner for the given Reader whose identifier
+     * spellings are interned in the given table
+     * @param reader the Reader providing the characters to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table of identifier names of the compilation,
+     *                  or null to give every identifier its own String
+     */
+    public DfaScanner(Reader reader, ErrorHandler handler, NameTable nameTable) {
+        this(new BufferedSourceFile(reader), handler, nameTable);
+    }
+
+    /**
+     * creates a scanner in push mode, which is given its characters by
+     * push() and pushEnd() instead of reading them from a source
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table identifiers are interned in, or null
+     */
+    DfaScanner(ErrorHandler handler, NameTable nameTable) {
+        this((SourceFile) null, handler, nameTable);
+        // no blank is pretended to precede pushed characters
+        offset = 0;
+    }
+
+    /**
+     * creates a new scanner for the given source of characters
+     * @param sourceFile the characters to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table identifiers are interned in, or null
+     */
+    DfaScanner(SourceFile sourceFile, ErrorHandler handler, NameTable nameTable) {
+        this.sourceFile = sourceFile;
+        errorHandler = handler;
+        this.nameTable = nameTable;
+        currentChar = ' ';
+        offset = -1;
+        line = 1;
+        lastCR = -2;
+    }
+
+    /**
+     * updates the line counters for a line break that is consumed,
+     * the same way Scanner does
+     * @param c the line break character, CR or LF
+     * @param at the offset of c
+     */
+    private void lineBreak(char c, int at) {
+        if (c == SourceFile.CR) {
+            lastCR = at;
+            line++;
+        }
+        else if (lastCR != at - 1) {
+            line++;
+        }
+        lineStart = at + 1;
+    }
+
+    /**
+     * read characters and collect them into a Token.
+     * It ignores white space unless it is inside a string or a comment.
+     * It returns an EOF Token if all characters from the sourceFile have
+     * already been read.
+     * @return the Token containing the characters read
+     */
+    public Token scan() throws IOException {
+        int charClass = classOf(currentChar);
+        while (charClass == C_BLANK || charClass == C_EOL || charClass == C_CR) {
+            if (charClass != C_BLANK) {
+                lineBreak(currentChar, offset);
+            }
+            currentChar = sourceFile.getNextChar();
+            offset++;
+            charClass = classOf(currentChar);
+        }
+        tokenStart = offset;
+        tokenLine = line;
+        tokenColumn = offset - lineStart + 1;
+        if (charClass == C_EOF) {
+            return token(Token.Kind.EOF, "");
+        }
+
+        char[] buf = buffer;
+        int len = 0;
+        int state = S_START;
+        int next;
+        while ((next = TRANSITIONS[state * NUM_CLASSES + charClass]) != DEAD) {
+            if (len == buf.length) {
+                buffer = buf = Arrays.copyOf(buf, len * 2);
+            }
+            buf[len++] = currentChar;
+            state = next;
+            currentChar = sourceFile.getNextChar();
+            charClass = classOf(currentChar);
+        }
+        offset += len;
+        length = len;
+        return accept(state);
+    }
+
+    /**
+     * runs the DFA over the next chunk of the input in push mode and
+     * passes each token completed in it to the sink. A token still open
+     * at the end of the chunk is continued by the next call.
+     * A '\u0000' character ends the input, as it does in pull mode.
+     * @param chars holds the chunk
+     * @param from the index of the chunk's first character
+     * @param to the index just past the chunk's last character
+     * @param sink receives the completed tokens
+     */
+    void push(char[] chars, int from, int to, Consumer<Token> sink) {
+        int state = pushState;
+        int i = from;
+        while (i < to && !pushEnded) {
+            char c = chars[i];
+            int charClass = classOf(c);
+            if (state == S_START) {
+                if (charClass == C_BLANK) {
+                    offset++;
+                    i++;
+                    continue;
+                }
+                if (charClass == C_EOL || charClass == C_CR) {
+                    lineBreak(c, offset);
+                    offset++;
+                    i++;
+                    continue;
+                }
+                if (charClass == C_EOF) {
+                    break;
+                }
+                tokenStart = offset;
+                tokenLine = line;
+                tokenColumn = offset - lineStart + 1;
+                length = 0;
+            }
+            int next = TRANSITIONS[state * NUM_CLASSES + charClass];
+            if (next == DEAD) {
+                // c isn't part of the token, so it is looked at again
+                // as the start of the next one
+                sink.accept(accept(state));
+                state = S_START;
+                if (buffer.length > MAX_IDLE_BUFFER) {
+                    buffer = new char[256];
+                }
+                continue;
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+            }
+            buffer[length++] = c;
+            state = next;
+            offset++;
+            i++;
+        }
+        pushState = state;
+        if (i < to && !pushEnded) {
+            pushEnd(sink);
+        }
+    }
+
+    /**
+     * ends the input in push mode: passes the token that is still open,
+     * if any, and then the EOF token to the sink. Later calls to push()
+     * and pushEnd() do nothing.
+     * @param sink receives the tokens
+     */
+    void pushEnd(Consumer<Token> sink) {
+        if (pushEnded) {
+            return;
+        }
+        pushEnded = true;
+        if (pushState != S_START) {
+            sink.accept(accept(pushState));
+            pushState = S_START;
+        }
+        tokenStart = offset;
+        tokenLine = line;
+        tokenColumn = offset - lineStart + 1;
+        sink.accept(token(Token.Kind.EOF, ""));
+    }
+
+    /**
+     * updates the line counters for the line breaks inside the token,
+     * which only comments and strings can contain
+     */
+    private void countLineBreaks() {
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            if (c == SourceFile.EOL || c == SourceFile.CR) {
+                lineBreak(c, tokenStart + i);
+            }
+        }
+    }
+
+    /**
+     * builds the token (or reports the error) for the state the DFA
+     * stopped in
+     * @param state the final state
+     * @return the Token
+     */
+    private Token accept(int state) {
+        switch (state) {
+            case S_IDENT:
+                int keyword = Keywords.find(buffer, 0, length);
+                if (keyword >= 0) {
+                    return token(Keywords.kindOf(keyword),
+                            Keywords.spellingOf(keyword));
+                }
+                if (nameTable != null) {
+                    return token(Token.Kind.IDENTIFIER,
+                            nameTable.intern(buffer, 0, length));
+                }
+                return token(Token.Kind.IDENTIFIER);
+            case S_INT:
+                return intFitsRange() ? token(Token.Kind.INTCONST)
+                        : error("Integer too large");
+            case S_PUNCT:
+                return token(punctKind(buffer[0]));
+            case S_PLUS:
+            case S_MINUS:
+                return token(Token.Kind.PLUSMINUS);
+            case S_INCR:
+                return token(Token.Kind.UNARYINCR);
+            case S_DECR:
+                return token(Token.Kind.UNARYDECR);
+            case S_ASSIGN:
+                return token(Token.Kind.ASSIGN);
+            case S_NOT:
+                return token(Token.Kind.UNARYNOT);
+            case S_COMPARE:
+            case S_COMPARE2:
+                return token(Token.Kind.COMPARE);
+            case S_LOGIC:
+                return token(Token.Kind.BINARYLOGIC);
+            case S_AMP:
+            case S_BAR:
+                return error("Exception: illegal character." +
+                        "A single & or | character isn't allowed in Bantam.");
+            case S_SLASH:
+                return token(Token.Kind.MULDIV);
+            case S_LINE_COMMENT:
+                return token(Token.Kind.COMMENT);
+            case S_BLOCK_END:
+                countLineBreaks();
+                return token(Token.Kind.COMMENT);
+            case S_BLOCK:
+            case S_BLOCK_STAR:
+                countLineBreaks();
+                return error("Exception: unterminated block comment");
+            case S_STR:
+            case S_STR_ESC:
+            case S_BAD_STR:
+            case S_BAD_STR_ESC:
+                countLineBreaks();
+                return error("Exception: unterminated string");
+            case S_BAD_STR_END:
+                countLineBreaks();
+                return error("Exception: illegal escape character");
+            case S_STR_END:
+                countLineBreaks();
+                if (length > 5000) {
+                    return error("Exception: string larger than 5000 chars");
+                }
+                if (line != tokenLine) {
+                    return error("Exception: spanning multiple lines");
+                }
+                return token(Token.Kind.STRCONST);
+            default:
+                return error("Exception: illegal character");
+        }
+    }
+
+    /**
+     * @param c one of { } ( ) . ; : , % *
+     * @return the kind of the single character symbol c
+     */
+    private static Token.Kind punctKind(char c) {
+        switch (c) {
+            case '{': return Token.Kind.LCURLY;
+            case '}': return Token.Kind.RCURLY;
+            case '(': return Token.Kind.LPAREN;
+            case ')': return Token.Kind.RPAREN;
+            case '.': return Token.Kind.DOT;
+            case ';': return Token.Kind.SEMICOLON;
+            case ':': return Token.Kind.COLON;
+            case ',': return Token.Kind.COMMA;
+            default: return Token.Kind.MULDIV;
+        }
+    }
+
+    /**
+     * @return true if the digits in the buffer are at most Integer.MAX_VALUE
+     */
+    private boolean intFitsRange() {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value * 10 + Character.digit(buffer[i], 10);
+            if (value > Integer.MAX_VALUE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the characters of the token as a String
+     */
+    private String spelling() {
+        if (length == 1 && buffer[0] < 128) {
+            return ONE_CHAR_SPELLINGS[buffer[0]];
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private Token token(Token.Kind kind) {
+        return token(kind, spelling());
+    }
+
+    private Token token(Token.Kind kind, String spelling) {
+        return new Token(kind, spelling, tokenLine, tokenColumn, tokenStart, offset);
+    }
+
+    private Token error(String message) {
+        errorHandler.register(Error.Kind.LEX_ERROR, message);
+        return token(Token.Kind.ERROR);
+    }
+
+    /**
+     * scans each file with both Scanner and DfaScanner and reports whether
+     * they produced the same Tokens and errors
+     */
+    public static void main(String[] args) throws IOException {
+        boolean allSame = true;
+        for (String arg : args) {
+            try {
+                ErrorHandler scannerErrors = new ErrorHandler();
+                ErrorHandler dfaErrors = new ErrorHandler();
+                String difference = compare(new Scanner(arg, scannerErrors),
+                        scannerErrors, new DfaScanner(arg, dfaErrors), dfaErrors);
+                if (difference == null) {
+                    System.out.println(arg + ": identical");
+                }
+                else {
+                    System.out.println(arg + ": " + difference);
+                    allSame = false;
+                }
+            } catch (CompilationException e) {
+                System.out.println(arg + ": " + e.getMessage());
+                allSame = false;
+            }
+        }
+        if (!allSame) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * scans with both lexers and returns a description of the first
+     * difference between them, or null if there is none
+     */
+    static String compare(Lexer expected, ErrorHandler expectedErrors,
+                          Lexer actual, ErrorHandler actualErrors) throws IOException {
+        int index = 0;
+        Token want;
+        do {
+            want = expected.scan();
+            Token got = actual.scan();
+            if (want.kind != got.kind || want.position != got.position ||
+                    want.column != got.column ||
+                    want.startOffset != got.startOffset ||
+                    want.endOffset != got.endOffset ||
+                    !want.spelling.equals(got.spelling)) {
+                return "token " + index + " differs: expected " + want + " but got " + got;
+            }
+            index++;
+        } while (want.kind != Token.Kind.EOF);
+
+        List<Error> want2 = expectedErrors.getErrorList();
+        List<Error> got2 = actualErrors.getErrorList();
+        if (want2.size() != got2.size()) {
+            return "expected " + want2.size() + " errors but got " + got2.size();
+        }
+        for (int i = 0; i < want2.size(); i++) {
+            if (!want2.get(i).toString().equals(got2.get(i).toString())) {
+                return "error " + i + " differs: expected " + want2.get(i) +
+                        " but got " + got2.get(i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * File: Keywords.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+/**
+ * Recognizes the reserved words and boolean constants of Bantam Java
+ * among identifier spellings without hashing or allocating anything.
+ *
+ * No two of these words have both the same length and the same first
+ * character, so the pair picks out the only candidate, which is then
+ * compared character by character. The scanners call this on the
+ * characters they have collected before building a Token, so a keyword
+ * gets its constant spelling and an identifier gets a single String.
+ */
+final class Keywords
+{
+    /** the words, indexed by the values returned by find() */
+    private static final String[] SPELLINGS = {
+            "if", "var", "for", "new", "cast", "else", "true", "break",
+            "class", "while", "false", "return", "extends", "instanceof"};
+
+    /** the kind of token for each of the words */
+    private static final Token.Kind[] KINDS = {
+            Token.Kind.IF, Token.Kind.VAR, Token.Kind.FOR, Token.Kind.NEW,
+            Token.Kind.CAST, Token.Kind.ELSE, Token.Kind.BOOLEAN, Token.Kind.BREAK,
+            Token.Kind.CLASS, Token.Kind.WHILE, Token.Kind.BOOLEAN, Token.Kind.RETURN,
+            Token.Kind.EXTENDS, Token.Kind.INSTANCEOF};
+
+    private Keywords() {
+    }
+
+    /**
+     * @param length the length of an identifier
+     * @param first the first character of the identifier
+     * @return the index of the only word that could match, or -1
+     */
+    private static int candidate(int length, char first) {
+        switch (length) {
+            case 2:
+                return first == 'i' ? 0 : -1;
+            case 3:
+                switch (first) {
+                    case 'v': return 1;
+                    case 'f': return 2;
+                    case 'n': return 3;
+                    default: return -1;
+                }
+            case 4:
+                switch (first) {
+                    case 'c': return 4;
+                    case 'e': return 5;
+                    case 't': return 6;
+                    default: return -1;
+                }
+            case 5:
+                switch (first) {
+                    case 'b': return 7;
+                    case 'c': return 8;
+                    case 'w': return 9;
+                    case 'f': return 10;
+                    default: return -1;
+                }
+            case 6:
+                return first == 'r' ? 11 : -1;
+            case 7:
+                return first == 'e' ? 12 : -1;
+            case 10:
+                return first == 'i' ? 13 : -1;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @param chars the characters of an identifier
+     * @return the index of the word it spells, or -1 if it is an
+     * ordinary identifier
+     */
+    static int find(CharSequence chars) {
+        int length = chars.length();
+        if (length == 0) {
+            return -1;
+        }
+        int index = candidate(length, chars.charAt(0));
+        if (index < 0) {
+            return -1;
+        }
+        String word = SPELLINGS[index];
+        for (int i = 1; i < length; i++) {
+            if (chars.charAt(i) != word.charAt(i)) {
+                return -1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param chars a buffer holding the characters of an identifier
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return the index of the word they spell, or -1 if they make up an
+     * ordinary identifier
+     */
+    static int find(char[] chars, int offset, int length) {
+        if (length == 0) {
+            return -1;
+        }
+        int index = candidate(length, chars[offset]);
+        if (index < 0) {
+            return -1;
+        }
+        String word = SPELLINGS[index];
+        for (int i = 1; i < length; i++) {
+            if (chars[offset + i] != word.charAt(i)) {
+                return -1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param index a value returned by find()
+     * @return the kind of token for the word
+     */
+    static Token.Kind kindOf(int index) {
+        return KINDS[index];
+    }
+
+    /**
+     * @param index a value returned by find()
+     * @return the spelling of the word, which is always the same String
+     */
+    static String spellingOf(int index) {
+        return SPELLINGS[index];
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * File: Lexer.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import java.io.IOException;
+
+/**
+ * Anything that breaks Bantam source code into a stream of Tokens.
+ * After the last token, every call to scan() returns an EOF Token.
+ */
+public interface Lexer
+{
+    /**
+     * @return the next Token of the source
+     */
+    Token scan() throws IOException;
+}
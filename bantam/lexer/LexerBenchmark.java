@@ -0,0 +1,205 @@
+/*
+ * File: LexerBenchmark.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the throughput of the lexer layers on the Bantam files given
+ * as command line arguments. Each measurement is repeated until it has run
+ * for about a second (after a warm-up round of the same length) so that
+ * the JIT has settled before the reported number is taken.
+ */
+public class LexerBenchmark
+{
+    /** how long each measurement (and each warm-up) runs, in nanoseconds */
+    private static final long RUN_NANOS = 1_000_000_000L;
+
+    /** a task that processes the given file once */
+    private interface FileTask
+    {
+        void run(String filename) throws IOException;
+    }
+
+    /**
+     * runs the task repeatedly on the file and returns the throughput
+     *
+     * @param filename the file to process
+     * @param task the work to measure
+     * @return the throughput in megabytes of source per second
+     */
+    private static double megabytesPerSecond(String filename, FileTask task)
+            throws IOException {
+        long bytes = new File(filename).length();
+        measure(filename, task); // warm-up
+        long[] result = measure(filename, task);
+        return (bytes * result[0] / 1e6) / (result[1] / 1e9);
+    }
+
+    /**
+     * @return {number of runs, elapsed nanoseconds}
+     */
+    private static long[] measure(String filename, FileTask task)
+            throws IOException {
+        long runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            task.run(filename);
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < RUN_NANOS);
+        return new long[] {runs, elapsed};
+    }
+
+    /**
+     * reads every character of the source file, as the Scanner does
+     *
+     * @param sourceFile the SourceFile to drain
+     * @return the line number at the end, so the work can't be optimized away
+     */
+    private static int drain(SourceFile sourceFile) throws IOException {
+        while (sourceFile.getNextChar() != SourceFile.EOF) {
+            // just consume the character
+        }
+        return sourceFile.getCurrentLineNumber();
+    }
+
+    /**
+     * scans every token of the file
+     *
+     * @param lexer the Lexer to drain
+     * @return the number of tokens, so the work can't be optimized away
+     */
+    private static int scanAll(Lexer lexer) throws IOException {
+        int count = 0;
+        while (lexer.scan().kind != Token.Kind.EOF) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * measures how many bytes the Scanner allocates per token on the file,
+     * including the Token objects and their spellings
+     *
+     * @param filename the file to scan
+     * @return the average number of bytes allocated per token
+     */
+    private static double bytesPerToken(String filename) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        measure(filename, f -> scanAll(new Scanner(f, new ErrorHandler()))); // warm-up
+        long before = threads.getThreadAllocatedBytes(thread);
+        int tokens = scanAll(new Scanner(filename, new ErrorHandler()));
+        long after = threads.getThreadAllocatedBytes(thread);
+        return (double) (after - before) / Math.max(tokens, 1);
+    }
+
+    /**
+     * scans the file, keeping all of its tokens, and measures the heap
+     * they retain
+     *
+     * @param filename the file to scan
+     * @param nameTable the table to intern identifiers in, or null
+     * @return the number of bytes retained by the tokens
+     */
+    private static long retainedBytes(String filename, NameTable nameTable)
+            throws IOException {
+        long before = usedHeap();
+        List<Token> tokens = new ArrayList<>();
+        Scanner scanner = new Scanner(filename, new ErrorHandler(), false, nameTable);
+        Token token;
+        do {
+            token = scanner.scan();
+            tokens.add(token);
+        } while (token.kind != Token.Kind.EOF);
+        long after = usedHeap();
+        if (tokens.isEmpty()) { // keep the tokens reachable until measured
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    /**
+     * lexes the file into a TokenBuffer and measures the heap it retains,
+     * including the source characters it keeps
+     *
+     * @param filename the file to lex
+     * @return the number of bytes retained by the buffer
+     */
+    private static long retainedBytes(String filename) {
+        long before = usedHeap();
+        TokenBuffer tokens = TokenBuffer.lex(filename, new ErrorHandler(), null);
+        long after = usedHeap();
+        if (tokens.size() == 0) { // keep the buffer reachable until measured
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    /**
+     * @return the heap in use after garbage collection has settled
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: LexerBenchmark file.btm ...");
+            return;
+        }
+        for (String arg : args) {
+            System.out.println(arg);
+            System.out.printf("  SourceFile (per char):    %8.1f MB/s%n",
+                    megabytesPerSecond(arg, f -> drain(new SourceFile(f))));
+            System.out.printf("  BufferedSourceFile:       %8.1f MB/s%n",
+                    megabytesPerSecond(arg, f -> drain(new BufferedSourceFile(f))));
+            System.out.printf("  MappedSourceFile:         %8.1f MB/s%n",
+                    megabytesPerSecond(arg, f -> drain(new MappedSourceFile(f))));
+            System.out.printf("  Scanner (buffered):       %8.1f MB/s%n",
+                    megabytesPerSecond(arg, f -> scanAll(new Scanner(f,
+                            new ErrorHandler(), false))));
+            System.out.printf("  Scanner (memory-mapped):  %8.1f MB/s%n",
+                    megabytesPerSecond(arg, f -> scanAll(new Scanner(f,
+                            new ErrorHandler(), true))));
+            System.out.printf("  DfaScanner:               %8.1f MB/s%n",
+                    megabytesPerSecond(arg, f -> scanAll(new DfaScanner(f,
+                            new ErrorHandler()))));
+            System.out.printf("  TokenBuffer.lex:          %8.1f MB/s%n",
+                    megabytesPerSecond(arg, f -> TokenBuffer.lex(f,
+                            new ErrorHandler(), null).size()));
+            System.out.printf("  Scanner allocation:       %8.1f bytes/token%n",
+                    bytesPerToken(arg));
+            long plain = retainedBytes(arg, null);
+            NameTable names = new NameTable();
+            long interned = retainedBytes(arg, names);
+            System.out.printf("  retained token heap:      %8.1f MB, %.1f MB with " +
+                            "%d interned names (%.0f%% saved)%n",
+                    plain / 1e6, interned / 1e6, names.size(),
+                    100.0 * (plain - interned) / plain);
+            System.out.printf("  retained TokenBuffer:     %8.1f MB%n",
+                    retainedBytes(arg) / 1e6);
+        }
+    }
+}
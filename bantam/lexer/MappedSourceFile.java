@@ -0,0 +1,157 @@
+/*
+ * File: MappedSourceFile.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A SourceFile that decodes its characters straight out of a memory-mapped
+ * file instead of going through a Reader. The file is assumed to be UTF-8;
+ * ASCII bytes (the usual case for Bantam sources) are returned as they are
+ * and only other bytes go through the multi-byte decoding path.
+ * Malformed sequences are replaced by U+FFFD.
+ *
+ * As in BufferedSourceFile, line numbers are computed in bulk when they are
+ * asked for. CR and LF never occur inside a multi-byte UTF-8 sequence, so
+ * the line terminators can be counted on the raw bytes.
+ */
+class MappedSourceFile extends SourceFile
+{
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final ByteBuffer bytes; // the mapped contents of the file
+    private final int limit;        // the number of bytes in the file
+    private int position;           // index of the next byte to decode
+    private char pendingLow;        // second half of a surrogate pair, or 0
+    private int countedTo;          // byte index up to which lines were counted
+    private int lineNumber;         // line number as of bytes[countedTo - 1]
+    private boolean lastWasCR;      // whether the last counted byte was a CR
+
+    /**
+     * maps the file with the given name into memory
+     *
+     * @param filename the name of the file to be read.
+     * @throws CompilationException if the file can't be opened or is too
+     *         large to be mapped into a single buffer
+     */
+    MappedSourceFile(String filename) {
+        super(null, filename);
+        try (FileChannel channel = FileChannel.open(Path.of(filename),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new CompilationException("File " + filename +
+                        " is too large to be mapped.", null);
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            limit = (int) size;
+        } catch (IOException e) {
+            throw new CompilationException("File " + filename + " could not be mapped.", e);
+        }
+        lineNumber = 1;
+    }
+
+    @Override
+    int getCurrentLineNumber() {
+        int lines = lineNumber;
+        boolean cr = lastWasCR;
+        for (int i = countedTo; i < position; i++) {
+            byte b = bytes.get(i);
+            if (b == CR) {
+                lines++;
+                cr = true;
+            }
+            else {
+                if (b == EOL && !cr) {
+                    lines++;
+                }
+                cr = false;
+            }
+        }
+        lineNumber = lines;
+        lastWasCR = cr;
+        countedTo = position;
+        return lineNumber;
+    }
+
+    /**
+     * Finds and returns the next character in the source file.
+     *
+     * @return the next character in the source file, or EOF at the end
+     */
+    @Override
+    char getNextChar() {
+        if (pendingLow != 0) {
+            char c = pendingLow;
+            pendingLow = 0;
+            return c;
+        }
+        if (position >= limit) {
+            return EOF;
+        }
+        byte b = bytes.get(position++);
+        if (b >= 0) {
+            return (char) b;
+        }
+        return decodeMultiByte(b);
+    }
+
+    /**
+     * decodes the rest of a UTF-8 sequence whose first byte has been read
+     *
+     * @param first the lead byte of the sequence
+     * @return the decoded character (the high surrogate for characters
+     *         outside the BMP, with the low one saved for the next call)
+     */
+    private char decodeMultiByte(byte first) {
+        int lead = first & 0xFF;
+        int length;
+        int codePoint;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            length = 2;
+            codePoint = lead & 0x1F;
+        }
+        else if (lead >= 0xE0 && lead <= 0xEF) {
+            length = 3;
+            codePoint = lead & 0x0F;
+        }
+        else if (lead >= 0xF0 && lead <= 0xF4) {
+            length = 4;
+            codePoint = lead & 0x07;
+        }
+        else {
+            return REPLACEMENT;
+        }
+
+        for (int i = 1; i < length; i++) {
+            if (position >= limit || (bytes.get(position) & 0xC0) != 0x80) {
+                return REPLACEMENT;
+            }
+            codePoint = (codePoint << 6) | (bytes.get(position++) & 0x3F);
+        }
+
+        // reject overlong forms, surrogates and values past U+10FFFF
+        if ((length == 3 && (codePoint < 0x800 ||
+                        Character.isSurrogate((char) codePoint))) ||
+                (length == 4 && (codePoint < 0x10000 ||
+                        codePoint > Character.MAX_CODE_POINT))) {
+            return REPLACEMENT;
+        }
+        if (length == 4) {
+            pendingLow = Character.lowSurrogate(codePoint);
+            return Character.highSurrogate(codePoint);
+        }
+        return (char) codePoint;
+    }
+}
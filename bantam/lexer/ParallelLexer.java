@@ -0,0 +1,456 @@
+/*
+ * File: ParallelLexer.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
+import proj8BogatyrevDimitrovWang.bantam.util.Error;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lexes a large source in parallel and produces the same TokenBuffer and
+ * the same errors as lexing it with one Scanner.
+ *
+ * The source is split into chunks that start at the beginning of a line,
+ * and each chunk is lexed on a fork-join pool by its own Scanner as if
+ * nothing carried over from the chunk before it. That guess is only wrong
+ * when a token runs over the end of a chunk (a block comment, or a string,
+ * which the Scanner continues past line breaks). The chunks are then
+ * joined in order. When the token stream joined so far ends inside a chunk
+ * instead of before it, the chunk is lexed again from where the stream
+ * ends, but only until the new tokens line up with the guessed ones again:
+ * the Scanner carries no state from one token to the next, so from a
+ * point that both streams reach between two tokens on they are the same.
+ *
+ * Line numbers depend on everything before a chunk, so each chunk is
+ * lexed as if it started on line 1 and its lines are shifted once the
+ * line breaks of the chunks before it have been counted.
+ */
+public class ParallelLexer
+{
+    /** chunks smaller than this aren't worth a task of their own */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * A chunk of the source and the tokens and errors found in it
+     * by lexing it on its own
+     */
+    private static class Chunk
+    {
+        final int start;           // the offset of the chunk's first character
+        final int limit;           // the offset just past its last character
+        final boolean last;        // whether the chunk ends the source
+        TokenBuffer tokens;        // tokens starting in the chunk; lines from 1
+        List<String> errors;       // the message of each ERROR token in order
+        int lineBreaks;            // the number of line breaks in the chunk
+
+        Chunk(int start, int limit, boolean last) {
+            this.start = start;
+            this.limit = limit;
+            this.last = last;
+        }
+    }
+
+    /**
+     * An ErrorHandler that just keeps the messages of the lexical errors,
+     * all of them and in the order they are found
+     */
+    private static class ErrorCollector extends ErrorHandler
+    {
+        final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void register(Error.Kind kind, String errorMessage) {
+            messages.add(errorMessage);
+        }
+    }
+
+    private final char[] source;
+    private final String filename;
+    private final NameTable nameTable;
+
+    private ParallelLexer(char[] source, String filename, NameTable nameTable) {
+        this.source = source;
+        this.filename = filename;
+        this.nameTable = nameTable;
+    }
+
+    /**
+     * lexes the file with the given name on the common fork-join pool
+     *
+     * @param filename the name of the file to be lexed
+     * @param handler the ErrorHandler that collects the lexical errors
+     * @param nameTable the table identifier spellings are interned in, or null
+     * @return the tokens of the file
+     * @throws CompilationException if the file can't be read
+     */
+    public static TokenBuffer lex(String filename, ErrorHandler handler,
+                                  NameTable nameTable) {
+        try (Reader reader = SourceFile.openFile(filename)) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            return lex(TokenBuffer.readAll(reader), filename, handler, nameTable,
+                    pool, pool.getParallelism() * 4);
+        } catch (IOException e) {
+            throw new CompilationException("File " + filename + " could not be read.", e);
+        }
+    }
+
+    /**
+     * lexes the given characters in parallel
+     *
+     * @param source the characters of a Bantam file; the buffer keeps
+     *               the array, so it must not be changed afterwards
+     * @param filename the name of the file they came from, or null
+     * @param handler the ErrorHandler that collects the lexical errors
+     * @param nameTable the table identifier spellings are interned in, or null
+     * @param pool the pool the chunks are lexed on
+     * @param chunks the number of chunks to split the source into; fewer
+     *               are used if they would be very small
+     * @return the tokens of the source
+     */
+    public static TokenBuffer lex(char[] source, String filename,
+                                  ErrorHandler handler, NameTable nameTable,
+                                  ForkJoinPool pool, int chunks) {
+        ParallelLexer lexer = new ParallelLexer(source, filename, nameTable);
+        List<Chunk> split = lexer.split(Math.max(1,
+                Math.min(chunks, source.length / MIN_CHUNK_SIZE)));
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<RecursiveAction> tasks = new ArrayList<>();
+                for (Chunk chunk : split) {
+                    tasks.add(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            lexer.lexChunk(chunk);
+                        }
+                    });
+                }
+                invokeAll(tasks);
+            }
+        });
+        return lexer.join(split, handler);
+    }
+
+    /**
+     * splits the source into about the given number of chunks, each of
+     * which begins at the start of a line
+     */
+    private List<Chunk> split(int chunks) {
+        List<Chunk> split = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < chunks && start < source.length; i++) {
+            int end = lineStartAtOrAfter((int) ((long) source.length * i / chunks));
+            if (end > start && end < source.length) {
+                split.add(new Chunk(start, end, false));
+                start = end;
+            }
+        }
+        split.add(new Chunk(start, source.length, true));
+        return split;
+    }
+
+    /**
+     * @param offset an offset in the source
+     * @return the offset of the first line start at or after it, never
+     * splitting a CR LF pair
+     */
+    private int lineStartAtOrAfter(int offset) {
+        int i = Math.max(offset, 1);
+        while (i < source.length) {
+            char previous = source[i - 1];
+            if (previous == SourceFile.EOL ||
+                    (previous == SourceFile.CR && source[i] != SourceFile.EOL)) {
+                return i;
+            }
+            i++;
+        }
+        return source.length;
+    }
+
+    /**
+     * lexes the tokens that start in the chunk, as if the chunk started
+     * the source, and counts the line breaks in it
+     */
+    private void lexChunk(Chunk chunk) {
+        ErrorCollector errors = new ErrorCollector();
+        TokenBuffer tokens = new TokenBuffer(source, filename, null);
+        // no name table: it isn't thread-safe, and the buffer only keeps offsets
+        Scanner scanner = new Scanner(new BufferedSourceFile(source, chunk.start,
+                source.length, 1, filename), errors, null);
+        scanner.resumeAt(chunk.start, 1, chunk.start, -2);
+        scanUntil(scanner, chunk.limit, chunk.last, tokens);
+        chunk.tokens = tokens;
+        chunk.errors = errors.messages;
+        chunk.lineBreaks = countLineBreaks(chunk.start, chunk.limit);
+    }
+
+    /**
+     * adds the tokens the scanner finds that start before the limit (or all
+     * of them up to EOF if the limit is the end of the source)
+     *
+     * @return true if the scan ended with the EOF token
+     */
+    private static boolean scanUntil(Scanner scanner, int limit, boolean last,
+                                     TokenBuffer tokens) {
+        try {
+            while (true) {
+                Token token = scanner.scan();
+                if (token.startOffset >= limit && !last) {
+                    return false;
+                }
+                tokens.add(token.kind, token.startOffset, token.endOffset,
+                        token.position);
+                if (token.kind == Token.Kind.EOF) {
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            // an array is never the cause of an IOException
+            throw new CompilationException("Unexpected read error.", e);
+        }
+    }
+
+    /**
+     * @return the number of line breaks in source[from..to), counting a
+     * CR LF pair once
+     */
+    private int countLineBreaks(int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            char c = source[i];
+            if (c == SourceFile.CR ||
+                    (c == SourceFile.EOL && (i == 0 || source[i - 1] != SourceFile.CR))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * joins the tokens of the chunks into one buffer, lexing again wherever
+     * a token ran from one chunk into the next, and registers the errors of
+     * the tokens that were kept in order
+     */
+    private TokenBuffer join(List<Chunk> chunks, ErrorHandler handler) {
+        TokenBuffer result = new TokenBuffer(source, filename, nameTable);
+        List<String> errors = new ArrayList<>();
+        int end = 0;       // where the tokens joined so far end
+        int firstLine = 1; // the line number at the start of the chunk
+        for (Chunk chunk : chunks) {
+            TokenBuffer tokens = chunk.tokens;
+            int lineShift = firstLine - 1;
+            firstLine += chunk.lineBreaks;
+            int from = 0;
+            if (end > chunk.start) {
+                // a token ran into this chunk, so its guessed tokens
+                // are only good from where the joined stream meets them
+                from = resync(tokens, chunk.start, end);
+                if (from < 0) {
+                    int[] resumed = relex(chunk, end, lineShift, result, errors);
+                    if (resumed == null) {
+                        break; // the EOF token was reached
+                    }
+                    end = resumed[0];
+                    from = resumed[1];
+                    if (from < 0) {
+                        continue; // the chunk ended before they met
+                    }
+                }
+            }
+            // the ERROR tokens before the first kept one had their errors
+            int errorIndex = 0;
+            for (int i = 0; i < from; i++) {
+                if (tokens.kind(i) == Token.Kind.ERROR) {
+                    errorIndex++;
+                }
+            }
+            for (int i = from; i < tokens.size(); i++) {
+                if (tokens.kind(i) == Token.Kind.ERROR) {
+                    errors.add(chunk.errors.get(errorIndex++));
+                }
+            }
+            result.append(tokens, from, tokens.size(), lineShift);
+            int lastIndex = tokens.size() - 1;
+            if (lastIndex >= 0) {
+                if (tokens.kind(lastIndex) == Token.Kind.EOF) {
+                    break;
+                }
+                end = tokens.start(lastIndex) + tokens.length(lastIndex);
+            }
+        }
+        result.trim();
+        for (String error : errors) {
+            handler.register(Error.Kind.LEX_ERROR, error);
+        }
+        return result;
+    }
+
+    /**
+     * @param tokens the guessed tokens of a chunk
+     * @param chunkStart the offset at which the chunk starts
+     * @param offset an offset after the chunk start
+     * @return the index of the first guessed token after the offset if the
+     * offset lies between two guessed tokens (so both streams go on the
+     * same way from it), or -1
+     */
+    private static int resync(TokenBuffer tokens, int chunkStart, int offset) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) { // find the first token starting at or after offset
+            int middle = (low + high) >>> 1;
+            if (tokens.start(middle) < offset) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        int previousEnd = low == 0 ? chunkStart :
+                tokens.start(low - 1) + tokens.length(low - 1);
+        return previousEnd <= offset && low < tokens.size() ? low : -1;
+    }
+
+    /**
+     * lexes the chunk again from the given offset, where the joined stream
+     * ends, until the new tokens meet the guessed ones or the chunk ends,
+     * appending the new tokens and their errors
+     *
+     * @return {the end of the last new token, the index of the guessed token
+     * to go on with or -1 if they didn't meet}, or null if the EOF token
+     * was reached
+     */
+    private int[] relex(Chunk chunk, int offset, int lineShift,
+                        TokenBuffer result, List<String> errors) {
+        int line = 1 + lineShift + countLineBreaks(chunk.start, offset);
+        int lineStart = offset;
+        while (lineStart > 0 && source[lineStart - 1] != SourceFile.EOL &&
+                source[lineStart - 1] != SourceFile.CR) {
+            lineStart--;
+        }
+        int lastCR = offset > 0 && source[offset - 1] == SourceFile.CR ? offset - 1 : -2;
+
+        ErrorCollector collector = new ErrorCollector();
+        Scanner scanner = new Scanner(new BufferedSourceFile(source, offset,
+                source.length, line, filename), collector, null);
+        scanner.resumeAt(offset, line, lineStart, lastCR);
+        int end = offset;
+        try {
+            while (true) {
+                Token token = scanner.scan();
+                if (token.startOffset >= chunk.limit && !chunk.last) {
+                    return new int[] {end, -1};
+                }
+                result.add(token.kind, token.startOffset, token.endOffset,
+                        token.position);
+                if (token.kind == Token.Kind.ERROR) {
+                    errors.add(collector.messages.get(collector.messages.size() - 1));
+                }
+                if (token.kind == Token.Kind.EOF) {
+                    return null;
+                }
+                end = token.endOffset;
+                int from = resync(chunk.tokens, chunk.start, end);
+                if (from >= 0) {
+                    return new int[] {end, from};
+                }
+            }
+        } catch (IOException e) {
+            // an array is never the cause of an IOException
+            throw new CompilationException("Unexpected read error.", e);
+        }
+    }
+
+    /**
+     * checks that lexing each file in parallel gives the same tokens and
+     * errors as lexing it with one Scanner, and measures how the time to
+     * lex it changes with the number of threads
+     */
+    public static void main(String[] args) throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            char[] source;
+            try (Reader reader = SourceFile.openFile(arg)) {
+                source = TokenBuffer.readAll(reader);
+            }
+            ErrorHandler sequentialErrors = new ErrorHandler();
+            TokenBuffer sequential = TokenBuffer.lex(source, arg,
+                    sequentialErrors, null);
+            boolean same = true;
+            for (int chunks : new int[] {2, 7, 64, 1000}) {
+                ErrorHandler parallelErrors = new ErrorHandler();
+                TokenBuffer parallel = lex(source, arg, parallelErrors, null,
+                        ForkJoinPool.commonPool(), chunks);
+                String difference = compare(sequential, sequentialErrors,
+                        parallel, parallelErrors);
+                if (difference != null) {
+                    System.out.println(arg + " in " + chunks + " chunks: " + difference);
+                    same = false;
+                }
+            }
+            System.out.println(arg + (same ? ": identical" : ": DIFFERENT") +
+                    " (" + sequential.size() + " tokens)");
+
+            System.out.printf("  sequential:   %8.1f ms%n", millis(() ->
+                    TokenBuffer.lex(source, arg, new ErrorHandler(), null)));
+            for (int threads = 1; threads <= cores; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                int chunks = threads * 4;
+                System.out.printf("  %2d thread(s): %8.1f ms%n", threads, millis(() ->
+                        lex(source, arg, new ErrorHandler(), null, pool, chunks)));
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return a description of the first difference between the two
+     * buffers and their errors, or null if there is none
+     */
+    private static String compare(TokenBuffer expected, ErrorHandler expectedErrors,
+                                  TokenBuffer actual, ErrorHandler actualErrors) {
+        if (expected.size() != actual.size()) {
+            return "expected " + expected.size() + " tokens but got " + actual.size();
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.kind(i) != actual.kind(i) ||
+                    expected.start(i) != actual.start(i) ||
+                    expected.length(i) != actual.length(i) ||
+                    expected.line(i) != actual.line(i)) {
+                return "token " + i + " differs: expected " + expected.get(i) +
+                        " but got " + actual.get(i);
+            }
+        }
+        List<Error> want = expectedErrors.getErrorList();
+        List<Error> got = actualErrors.getErrorList();
+        if (!want.toString().equals(got.toString())) {
+            return "expected errors " + want + " but got " + got;
+        }
+        return null;
+    }
+
+    /**
+     * @return the best time of several runs of the task, in milliseconds
+     */
+    private static double millis(Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
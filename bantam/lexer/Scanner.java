@@ -12,48 +12,53 @@ package proj8BogatyrevDimitrovWang.bantam.lexer;
 import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
 import proj8BogatyrevDimitrovWang.bantam.util.Error;
 import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.HashMap;
 
 /**
  * This class reads characters from a file or a Reader
  * and breaks it into Tokens.
+ *
+ * Each call to scan() dispatches on the first character of the token
+ * with a switch and collects the characters of variable-length tokens
+ * (identifiers, integers, strings, comments) into a single reusable
+ * StringBuilder, so the only allocation per token is its spelling
+ * (and none at all for the fixed symbols, whose spellings are constants).
+ *
+ * The offset, line and line start of currentChar are kept in counters that
+ * are bumped as characters are consumed (the line ones only where a line
+ * break can occur: white space, comments and strings), so every token gets
+ * its start and end offsets, line and column without any extra work.
  * @author Anton Dimitrov, Baron Wang, Phil Bogatyrev
  *
  */
-public class Scanner
+public class Scanner implements Lexer
 {
+    /** the longest legal string constant, including the quotes */
+    private static final int MAX_STRING_LENGTH = 5000;
+
     /** the source of the characters to be broken into tokens */
-    private final SourceFile sourceFile;
+    private SourceFile sourceFile;
     /** collector of all errors that occur */
     private final ErrorHandler errorHandler;
+    /** the first character not yet part of any token */
     private char currentChar;
-    private String tokenContent;
-    private boolean inString;
-
-
-    // hashmap for special symbols and their corresponding tokens
-    private final HashMap<String,Token.Kind> kindHashMap = new HashMap<>() {{
-        put("{", Token.Kind.LCURLY);
-        put("}", Token.Kind.RCURLY);
-        put("(", Token.Kind.LPAREN);
-        put(")", Token.Kind.RPAREN);
-        put(".", Token.Kind.DOT);
-        put(";", Token.Kind.SEMICOLON);
-        put(":", Token.Kind.COLON);
-        put(",", Token.Kind.COMMA);
-        put("=", Token.Kind.ASSIGN);
-        put("+", Token.Kind.PLUSMINUS);
-        put("-", Token.Kind.PLUSMINUS);
-        put("*", Token.Kind.MULDIV);
-        put("/", Token.Kind.MULDIV);
-        put("%", Token.Kind.MULDIV);
-        put("!", Token.Kind.UNARYNOT);
-        put(">", Token.Kind.COMPARE);
-        put("<", Token.Kind.COMPARE);
-    }};
+    /** the characters of the token being scanned */
+    private final StringBuilder tokenContent;
+    /** the table identifier spellings are interned in, or null */
+    private final NameTable nameTable;
+    /** the offset of currentChar in the source */
+    private int offset;
+    /** the line number of currentChar */
+    private int line;
+    /** the offset of the first character of currentChar's line */
+    private int lineStart;
+    /** the offset of the last carriage return consumed */
+    private int lastCR;
+    /** the offset, line and column of the token being scanned */
+    private int tokenStart, tokenLine, tokenColumn;
 
     /**
      * creates a new scanner for the given file
@@ -61,11 +66,34 @@ public class Scanner
      * @param handler the ErrorHandler that collects all the errors found
      */
     public Scanner(String filename, ErrorHandler handler) {
-        errorHandler = handler;
-        currentChar = ' ';
-        sourceFile = new SourceFile(filename);
-        tokenContent = "";
-        inString = false;
+        this(filename, handler, false);
+    }
+
+    /**
+     * creates a new scanner for the given file, which can be read
+     * through a memory-mapped buffer instead of a Reader.
+     * Memory mapping pays off for large files and expects UTF-8 input.
+     * @param filename the name of the file to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param memoryMapped true if the file should be memory-mapped
+     */
+    public Scanner(String filename, ErrorHandler handler, boolean memoryMapped) {
+        this(filename, handler, memoryMapped, null);
+    }
+
+    /**
+     * creates a new scanner for the given file whose identifier
+     * spellings are interned in the given table
+     * @param filename the name of the file to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param memoryMapped true if the file should be memory-mapped
+     * @param nameTable the table of identifier names of the compilation,
+     *                  or null to give every identifier its own String
+     */
+    public Scanner(String filename, ErrorHandler handler, boolean memoryMapped,
+                   NameTable nameTable) {
+        this(memoryMapped ? new MappedSourceFile(filename) :
+                new BufferedSourceFile(filename), handler, nameTable);
     }
 
     /**
@@ -74,15 +102,96 @@ public class Scanner
      * @param handler the ErrorHandler that collects all the errors found
      */
     public Scanner(Reader reader, ErrorHandler handler) {
+        this(reader, handler, null);
+    }
+
+    /**
+     * creates a new scanner for the given Reader whose identifier
+     * spellings are interned in the given table
+     * @param reader the Reader providing the characters to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table of identifier names of the compilation,
+     *                  or null to give every identifier its own String
+     */
+    public Scanner(Reader reader, ErrorHandler handler, NameTable nameTable) {
+        this(new BufferedSourceFile(reader), handler, nameTable);
+    }
+
+    /**
+     * creates a new scanner for the characters source[0..length), which
+     * are read straight out of the array
+     * @param source holds the characters to be scanned
+     * @param length the number of characters to scan
+     * @param filename the name of the file they came from, or null
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table of identifier names of the compilation,
+     *                  or null to give every identifier its own String
+     */
+    public Scanner(char[] source, int length, String filename,
+                   ErrorHandler handler, NameTable nameTable) {
+        this(new BufferedSourceFile(source, 0, length, 1, filename), handler,
+                nameTable);
+    }
+
+    /**
+     * makes the scanner start over on the characters source[0..length),
+     * keeping the buffer it collects the characters of tokens in, so that
+     * one scanner can scan many sources one after the other
+     * @param source holds the characters to be scanned
+     * @param length the number of characters to scan
+     * @param filename the name of the file they came from, or null
+     */
+    public void reset(char[] source, int length, String filename) {
+        sourceFile = new BufferedSourceFile(source, 0, length, 1, filename);
+        currentChar = ' ';
+        offset = -1;
+        line = 1;
+        lineStart = 0;
+        lastCR = -2;
+        tokenContent.setLength(0);
+    }
+
+    /**
+     * creates a new scanner for the given source of characters
+     * @param sourceFile the characters to be scanned
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table identifiers are interned in, or null
+     */
+    Scanner(SourceFile sourceFile, ErrorHandler handler, NameTable nameTable) {
+        this.sourceFile = sourceFile;
         errorHandler = handler;
-        sourceFile = new SourceFile(reader);
-        tokenContent = "";
-        inString = false;
+        this.nameTable = nameTable;
+        // pretend a blank precedes the source so that the first call
+        // to scan() reads the first character
+        currentChar = ' ';
+        offset = -1;
+        line = 1;
+        lastCR = -2;
+        tokenContent = new StringBuilder();
     }
 
 
-    /** registers the error in the error handler,
-     * wipe the tokenContent, then return the error token
+    /**
+     * makes the scanner continue at the given offset of its source, which
+     * must be where its SourceFile is about to read from and must not be
+     * inside a token
+     * @param start the offset of the next character of the source
+     * @param startLine the line number of that character
+     * @param startOfLine the offset of the first character of its line
+     * @param lastCarriageReturn the offset of the last carriage return
+     *                           before it, or -2 if there is none
+     */
+    void resumeAt(int start, int startLine, int startOfLine, int lastCarriageReturn) {
+        // the pretended blank is just before the start
+        offset = start - 1;
+        line = startLine;
+        lineStart = startOfLine;
+        lastCR = lastCarriageReturn;
+    }
+
+    /** registers the error in the error handler
+     * and returns an error token spelled as the characters
+     * collected in tokenContent
      *
      * @param errorMessage String: error message
      * @return a LEX_ERROR token
@@ -90,44 +199,77 @@ public class Scanner
      */
     private Token lexErrorToken(String errorMessage){
         errorHandler.register(Error.Kind.LEX_ERROR, errorMessage);
-        String spel = tokenContent;
-
-        // if current character is whitespace
-        // or if current character hits a quotationmark
-        // which means it must have hit the end of a
-        // STRCONST, simply wipe tokenContent
-        if (currentChar == SourceFile.EOL ||
-                currentChar == SourceFile.CR ||
-                currentChar == (' ') ||
-                currentChar == '\t' ||
-                currentChar == '"'){
-            tokenContent = "";
+        return token(Token.Kind.ERROR, tokenContent.toString());
+    }
+
+    /**
+     * creates a token that starts where the current token started and
+     * ends just before currentChar
+     * @param kind the kind of the token
+     * @param spelling the characters making up the token
+     * @return the Token
+     */
+    private Token token(Token.Kind kind, String spelling) {
+        return new Token(kind, spelling, tokenLine, tokenColumn, tokenStart, offset);
+    }
+
+    /**
+     * moves on to the next character of the source
+     */
+    private void nextChar() throws IOException {
+        currentChar = sourceFile.getNextChar();
+        offset++;
+    }
+
+    /**
+     * appends currentChar to the token and moves on to the next character
+     */
+    private void takeChar() throws IOException {
+        tokenContent.append(currentChar);
+        currentChar = sourceFile.getNextChar();
+        offset++;
+    }
+
+    /**
+     * updates the line counters for the line break in currentChar, which
+     * is about to be consumed. A LF right after a CR is part of the same
+     * line break.
+     */
+    private void lineBreak() {
+        if (currentChar == SourceFile.CR) {
+            lastCR = offset;
+            line++;
         }
-        else{
-            tokenContent = String.valueOf(currentChar);
+        else if (lastCR != offset - 1) {
+            line++;
         }
-        return new Token(Token.Kind.ERROR,
-                spel,
-                lineNum());
+        lineStart = offset + 1;
     }
 
     /**
-     * returns the current line number.
-     *
-     * This method is necessary because
-     * sourceFile.getCurrentLineNumber
-     * returns line number based on currentChar
-     * but sometimes currentChar is the
-     * new line character, causing the
-     * original function to sometimes
-     * report one line ahead
-     * @return int line number
+     * consumes the current character and returns a token for a
+     * symbol whose spelling is fixed
+     * @param kind the kind of the symbol
+     * @param spelling the spelling of the symbol
+     * @return the Token for the symbol
      */
-    private int lineNum(){
-        return currentChar == SourceFile.EOL ||
-                currentChar == SourceFile.CR ?
-                sourceFile.getCurrentLineNumber()-1:
-                sourceFile.getCurrentLineNumber();
+    private Token symbol(Token.Kind kind, String spelling) throws IOException {
+        nextChar();
+        return token(kind, spelling);
+    }
+
+    /**
+     * consumes the current character, which starts a one- or two-character
+     * symbol, and returns the two-character symbol if the next character
+     * is the given one and the one-character symbol otherwise
+     */
+    private Token symbol(char second, Token.Kind longKind, String longSpelling,
+                         Token.Kind shortKind, String shortSpelling) throws IOException {
+        nextChar();
+        if (currentChar == second) {
+            return symbol(longKind, longSpelling);
+        }
+        return token(shortKind, shortSpelling);
     }
 
     /**
@@ -138,339 +280,225 @@ public class Scanner
      * @return the Token containing the characters read
      */
     public Token scan() throws IOException{
-            // if it hasn't reached the end of file or tokenContent is an empty string
-        while(tokenContent.isEmpty() ||
-                    tokenContent.charAt(tokenContent.length() - 1) != SourceFile.EOF )
-            {
-                currentChar = sourceFile.getNextChar();
-
-                // identifier: if currentChar is alphabetic
-                // or if tokenContent is alphabetic
-                if (tokenContent.length()==1
-                        && Character.isAlphabetic(tokenContent.charAt(0)) )
-                {
-                    // Instructions:
-                    // "starts with an uppercase or lowercase letter
-                    // and is followed by a sequence of letters
-                    // (upper or lowercase), digits, and underscore '_'."
-                    while(Character.isAlphabetic(currentChar)
-                            || Character.isDigit(currentChar)
-                            || currentChar == '_'){
-                        tokenContent += currentChar;
-                        currentChar = sourceFile.getNextChar();
-                    }
-                    // currentChar no longer in IDENTIFIER
-                    // could be pointing to whitespace,
-                    // special symbols, or anything
-                    String tContentCopy = tokenContent;
-                    if (currentChar == SourceFile.EOL ||
-                            currentChar == SourceFile.CR ||
-                            currentChar == (' ')){
-                        tokenContent = "";
-                    }
-                    else{
-                        tokenContent = String.valueOf(currentChar);
-                    }
-                    return new Token(Token.Kind.IDENTIFIER,
-                            tContentCopy, lineNum());
+        while (true) {
+            if (currentChar == ' ' || currentChar == '\t') {
+                nextChar();
+            }
+            else if (currentChar == SourceFile.EOL || currentChar == SourceFile.CR) {
+                lineBreak();
+                nextChar();
+            }
+            else {
+                break;
+            }
+        }
+        tokenContent.setLength(0);
+        tokenStart = offset;
+        tokenLine = line;
+        tokenColumn = offset - lineStart + 1;
+
+        switch (currentChar) {
+            case SourceFile.EOF:
+                // if it reached the end of the file, any further
+                // calls will return a token of type EOF
+                // with a spelling of "" (empty string)
+                return token(Token.Kind.EOF, "");
+            case '{': return symbol(Token.Kind.LCURLY, "{");
+            case '}': return symbol(Token.Kind.RCURLY, "}");
+            case '(': return symbol(Token.Kind.LPAREN, "(");
+            case ')': return symbol(Token.Kind.RPAREN, ")");
+            case '.': return symbol(Token.Kind.DOT, ".");
+            case ';': return symbol(Token.Kind.SEMICOLON, ";");
+            case ':': return symbol(Token.Kind.COLON, ":");
+            case ',': return symbol(Token.Kind.COMMA, ",");
+            case '*': return symbol(Token.Kind.MULDIV, "*");
+            case '%': return symbol(Token.Kind.MULDIV, "%");
+            case '+':
+                return symbol('+', Token.Kind.UNARYINCR, "++",
+                        Token.Kind.PLUSMINUS, "+");
+            case '-':
+                return symbol('-', Token.Kind.UNARYDECR, "--",
+                        Token.Kind.PLUSMINUS, "-");
+            case '=':
+                return symbol('=', Token.Kind.COMPARE, "==",
+                        Token.Kind.ASSIGN, "=");
+            case '!':
+                return symbol('=', Token.Kind.COMPARE, "!=",
+                        Token.Kind.UNARYNOT, "!");
+            case '<':
+                return symbol('=', Token.Kind.COMPARE, "<=",
+                        Token.Kind.COMPARE, "<");
+            case '>':
+                return symbol('=', Token.Kind.COMPARE, ">=",
+                        Token.Kind.COMPARE, ">");
+            case '&':
+            case '|':
+                return scanBinaryLogic();
+            case '/':
+                return scanSlash();
+            case '"':
+                return scanString();
+            default:
+                if (Character.isAlphabetic(currentChar)) {
+                    return scanIdentifier();
                 }
-
-                // int constant
-                if (tokenContent.length()==1
-                        && Character.isDigit(tokenContent.charAt(0))){
-                    while(Character.isDigit(currentChar)){
-                        tokenContent += currentChar;
-                        currentChar = sourceFile.getNextChar();
-                    }
-                    // check if the integer is too big
-                    try {
-                        Integer.parseInt(tokenContent);
-                        String tContentCopy = tokenContent;
-
-                        if (currentChar == SourceFile.EOL ||
-                                currentChar == SourceFile.CR ||
-                                currentChar == (' ')){
-                            tokenContent = "";
-                        }
-                        else{
-                            tokenContent = String.valueOf(currentChar);
-                        }
-
-                        return new Token(Token.Kind.INTCONST,
-                                tContentCopy, lineNum());
-                    } catch (NumberFormatException e){
-                        String falseIntErrMessage = "Integer too large";
-                        return lexErrorToken(falseIntErrMessage);
-                    }
+                if (Character.isDigit(currentChar)) {
+                    return scanInteger();
                 }
+                takeChar();
+                return lexErrorToken("Exception: illegal character");
+        }
+    }
 
+    /**
+     * scans "&&" or "||". A single & or | is an error.
+     * @return the BINARYLOGIC token or an error token
+     */
+    private Token scanBinaryLogic() throws IOException {
+        char first = currentChar;
+        takeChar();
+        if (currentChar == first) {
+            return symbol(Token.Kind.BINARYLOGIC, first == '&' ? "&&" : "||");
+        }
+        return lexErrorToken("Exception: illegal character." +
+                "A single & or | character isn't allowed in Bantam.");
+    }
 
-                // If currentChar is any kind of whitespace
-                // out of a string, start interpreting
-                // the tokenContent as a token, and move currentChar forward by one
-                if (!inString) {
-                    while (currentChar == SourceFile.EOL ||
-                            currentChar == SourceFile.CR ||
-                            currentChar == '\t'||
-                            currentChar == (' ')) {
-
-                        // at this point, only tokenContent of length
-                        // 1 is possible, since all IDENTIFIER's,
-                        // INTCONSTANT's, COMMENT's and STRCONSTANT's
-                        // are properly handled and there's only symbols left
-                        if (kindHashMap.containsKey(tokenContent)
-                        ){
-                            String tContentCopy = tokenContent;
-                            tokenContent = "";
-                            return new Token(kindHashMap.get(tContentCopy),
-                                    tContentCopy, lineNum());
-                        }
-                        else if (tokenContent.equals("|")
-                                || tokenContent.equals("&")){
-                            return lexErrorToken("Exception:" +
-                                    "bitwise logic not supported in bantam");
-                        }
-                            // if the symbol isn't in the kindhashmap or a binary logic
-                        else if (!tokenContent.isEmpty()) {
-                            return lexErrorToken("Exception: illegal character");
-                        }
-                        currentChar = sourceFile.getNextChar();
-                        }
+    /**
+     * scans a division operator, a line comment or a block comment
+     * @return the Token for whichever of the three it is
+     */
+    private Token scanSlash() throws IOException {
+        takeChar();
+        if (currentChar == '/') {
+            // inline comment starting with double "/"
+            // running up to the end of the line
+            while (currentChar != SourceFile.EOL && currentChar != SourceFile.CR
+                    && currentChar != SourceFile.EOF) {
+                takeChar();
+            }
+            return token(Token.Kind.COMMENT, tokenContent.toString());
+        }
+        if (currentChar == '*') {
+            // block comment starting with /* and ending with */
+            takeChar();
+            boolean afterStar = false;
+            while (!(afterStar && currentChar == '/')) {
+                if (currentChar == SourceFile.EOF) {
+                    return lexErrorToken("Exception: unterminated block comment");
                 }
-
-                // check if it's a symbol, including binary logic symbols
-                if (tokenContent.length() == 1 &&
-                        kindHashMap.containsKey(tokenContent)
-                    || tokenContent.equals("&") || tokenContent.equals("|") ) {
-
-                    // saving a backup of the string because we
-                    // need to check for stuff like ++
-                    String prevStr = tokenContent;
-
-                    // double-character tokens handling
-                    if (currentChar == '+' || currentChar == '-'){
-                        if (currentChar == prevStr.charAt(0)){
-
-                            Token token = currentChar == '+' ?
-                                    new Token(Token.Kind.UNARYINCR, "++",
-                                            lineNum()) :
-                                    new Token(Token.Kind.UNARYDECR, "--",
-                                            lineNum());
-                            tokenContent="";
-                            return token;
-                        }
-                    }else if (currentChar == '/'){
-                        if (currentChar == prevStr.charAt(0)){
-                            // inline comment starting with double "/"
-                            while (currentChar != SourceFile.CR && currentChar != SourceFile.EOF
-                            && currentChar != '\n'){
-                                tokenContent += String.valueOf(currentChar);
-                                currentChar = sourceFile.getNextChar();
-                            }
-                            // once currentChar hits end of line, return comment token
-                            String prevStr1 = tokenContent;
-                            tokenContent = "";
-                            return new Token(Token.Kind.COMMENT, prevStr1, lineNum());
-                        }
-                        // block comment starting with /* and ending with */
-                    }else if (currentChar == '*'){
-                        if (prevStr.charAt(0) == '/'){
-                            tokenContent = "/";
-                            while (currentChar != '/' || tokenContent.charAt(tokenContent.length()-1) != '*'){
-                                tokenContent += String.valueOf(currentChar);
-                                currentChar = sourceFile.getNextChar();
-                                if (currentChar == SourceFile.EOF){
-                                    String errorMessage = "Exception: unterminated block comment";
-                                    return lexErrorToken(errorMessage);
-                                }
-                            }
-                            // once currentChar hits end of line, return comment token
-                            String prevStr1 = tokenContent;
-                            tokenContent = "";
-                            return new Token(Token.Kind.COMMENT, prevStr1+'/', lineNum());
-                        }
-                        // binary logic
-                    }else if (prevStr.equals("&") || prevStr.equals("|")){
-                        if (currentChar == prevStr.charAt(0)){
-                            String tokenSpel = currentChar == '&' ? "&&" : "||";
-                            Token token = new Token(Token.Kind.BINARYLOGIC, tokenSpel,
-                                            lineNum());
-                            tokenContent="";
-                            return token;
-                        }
-                        // if there is only one '&' or '|' ...
-                        else {
-                            return lexErrorToken("Exception: illegal character." +
-                                    "A single & or | character isn't allowed in Bantam.");
-                        }
-                        // handling COMPARE tokens with two characters (==,!=,<=,>=)
-                    } else if (currentChar == '=') {
-                        if (prevStr.charAt(0) == '='
-                         || prevStr.charAt(0) == '<'
-                         || prevStr.charAt(0) == '>'
-                         || prevStr.charAt(0) == '!'
-                        ) {
-                            Token token =
-                                    new Token(Token.Kind.COMPARE,
-                                            prevStr+"=",
-                                            lineNum());
-                            tokenContent = "";
-                            return token;
-                        }
-                    }
-                    tokenContent = String.valueOf(currentChar);
-
-
-                    // check if a string is following
-                    if (currentChar == '\"'){
-                        inString = true;
-                    }
-
-                    // assign special symbol kind
-                    Token.Kind tokenKind = kindHashMap.get(String.valueOf(prevStr.charAt(0)));
-                    return new Token(tokenKind,
-                            prevStr,
-                            lineNum());
+                if (currentChar == SourceFile.EOL || currentChar == SourceFile.CR) {
+                    lineBreak();
                 }
-                // string
-                else if (tokenContent.length() == 1 && tokenContent.equals( "\"")){
-                    // helper variables for error handling
-                    boolean hasLegalEscapeCharOnly = true;
-                    boolean unterminatedStr = false;
-                    // do while loop because the character pointer
-                    // (currentChar) needs to move on
-
-                    // empty string -> return early
-                    if (currentChar == '"'){
-                        tokenContent += currentChar;
-                        String strCopy = tokenContent;
-                        tokenContent = "";
-                        inString = false;
-                        return new Token(Token.Kind.STRCONST,strCopy,
-                                lineNum());
-                    }
-
-                    while (currentChar != '"'){
+                afterStar = currentChar == '*';
+                takeChar();
+            }
+            takeChar();
+            return token(Token.Kind.COMMENT, tokenContent.toString());
+        }
+        return token(Token.Kind.MULDIV, "/");
+    }
 
-                        // check for unterminated tokenContent
-                        if (currentChar == SourceFile.EOF){
-                            unterminatedStr = true;
+    /**
+     * scans a string constant, including its quotes.
+     * A string with an illegal escape character, longer than 5000
+     * characters, spanning multiple lines, or lacking the closing quote
+     * is reported as an error.
+     * @return the STRCONST token or an error token
+     */
+    private Token scanString() throws IOException {
+        boolean hasLegalEscapeCharOnly = true;
+        boolean spansLines = false;
+        takeChar();
+        while (currentChar != '"') {
+            switch (currentChar) {
+                case SourceFile.EOF:
+                    return lexErrorToken("Exception: unterminated string");
+                case SourceFile.EOL:
+                case SourceFile.CR:
+                    spansLines = true;
+                    lineBreak();
+                    break;
+                case '\\':
+                    takeChar();
+                    // the escaped character can't end the string
+                    switch (currentChar) {
+                        case 'n': case 't': case '"': case '\\': case 'f':
                             break;
-                        }
-
-                        // handling backslash
-                        if (currentChar == '\\'){
-                            tokenContent += String.valueOf(currentChar);
-                            currentChar = sourceFile.getNextChar();
-                            // get next char to see if its legal escape char
-                            if (!(currentChar == 'n' ||
-                                    currentChar == 't' ||
-                                    currentChar == '"' ||
-                                    currentChar == '\\' ||
-                                    currentChar == 'f')){
-                                hasLegalEscapeCharOnly = false;
-                            }
-                        }
-                        tokenContent += String.valueOf(currentChar);
-                        currentChar = sourceFile.getNextChar();
-                    }
-                    // appending the last '"'
-                    tokenContent += currentChar;
-
-
-                    // error handling
-                    // TODO current tokenContent is always the string with
-                    if (unterminatedStr){
-                        String errorMessage = "Exception: unterminated string";
-                        inString = false;
-                        return lexErrorToken(errorMessage);
-                    }
-                    if (!hasLegalEscapeCharOnly) {
-                        // if it has illegal escape character
-                        String errorMessage = "Exception: illegal escape character";
-                        inString = false;
-                        return lexErrorToken(errorMessage);
-
-                    }else if (tokenContent.length() > 5000) {
-                        // if it is too long
-                        String errorMessage = "Exception: string larger than 5000 chars";
-                        inString = false;
-                        return lexErrorToken(errorMessage);
-                    }
-
-                    else if (tokenContent.contains("\n") || tokenContent.contains("\r")){
-                        // if it spans multiple lines
-                        String errorMessage = "Exception: spanning multiple lines";
-                        inString = false;
-                        return lexErrorToken(errorMessage);
-
-                    }
-
-                    String strCopy = tokenContent;
-                    tokenContent = "";
-                    // exiting string
-                    inString = false;
-                    return new Token(Token.Kind.STRCONST,strCopy,
-                            lineNum());
-                }
-                // when encounters a special symbol
-                // also handling empty string
-                else if (kindHashMap.containsKey(String.valueOf(currentChar))
-                || currentChar == '"' || currentChar == '&' || currentChar == '|')
-                {
-
-                    tokenContent = String.valueOf(currentChar);
-
-                    // if currentChar hit a ", set inString to true
-                    // so it won't skip whitespaces
-                    if (currentChar == '"'){
-                        inString = true;
+                        case SourceFile.EOF:
+                            return lexErrorToken("Exception: unterminated string");
+                        case SourceFile.EOL:
+                        case SourceFile.CR:
+                            spansLines = true;
+                            hasLegalEscapeCharOnly = false;
+                            lineBreak();
+                            break;
+                        default:
+                            hasLegalEscapeCharOnly = false;
                     }
-                }
+                    break;
+                default:
+                    break;
+            }
+            takeChar();
+        }
+        // appending the last '"'
+        takeChar();
 
+        if (!hasLegalEscapeCharOnly) {
+            return lexErrorToken("Exception: illegal escape character");
+        }
+        if (tokenContent.length() > MAX_STRING_LENGTH) {
+            return lexErrorToken("Exception: string larger than 5000 chars");
+        }
+        if (spansLines) {
+            return lexErrorToken("Exception: spanning multiple lines");
+        }
+        return token(Token.Kind.STRCONST, tokenContent.toString());
+    }
 
-                // if current character is part of any stray
-                // IDENTIFIER or INTCONST
-                // add them to tokenContent
-                else if (tokenContent.isBlank()
-                && (Character.isAlphabetic(currentChar)
+    /**
+     * scans an identifier: an uppercase or lowercase letter
+     * followed by a sequence of letters, digits, and underscores.
+     * Reserved words and boolean constants are recognized here,
+     * and get their constant spelling instead of a new String.
+     * Other identifiers get their canonical String from the name table
+     * if there is one.
+     * @return the IDENTIFIER, keyword or BOOLEAN token
+     */
+    private Token scanIdentifier() throws IOException {
+        do {
+            takeChar();
+        } while (Character.isAlphabetic(currentChar)
                 || Character.isDigit(currentChar)
-                || currentChar == '_')){
-                    tokenContent += currentChar;
-                }
-
-                // unsupported character
-                // either currentChar or tokenContent could be unsupported
-                else if (currentChar != SourceFile.EOF){
-                    if (tokenContent.isEmpty()){
-                        tokenContent = String.valueOf(currentChar);
-                        continue;
-                    }
-                    return lexErrorToken("Exception: illegal character");
-                }
+                || currentChar == '_');
+        int keyword = Keywords.find(tokenContent);
+        if (keyword >= 0) {
+            return token(Keywords.kindOf(keyword), Keywords.spellingOf(keyword));
+        }
+        String name = nameTable == null ? tokenContent.toString() :
+                nameTable.intern(tokenContent);
+        return token(Token.Kind.IDENTIFIER, name);
+    }
 
-                // current character is EOF, and a token needs to be returned
-                // -> must be illegal, otherwise it wouldn't reach here
-                else if (!tokenContent.isEmpty()){
-                    String tContentCopy = tokenContent;
-                    // "\u0000" is NOT empty.
-                    // So tokenContent can break
-                    // out of the loop
-                    tokenContent+=currentChar;
-                    return new Token(Token.Kind.ERROR,tContentCopy,
-                            lineNum());
-                // if tokenContent.isEmpty() and EOF just break out of it
-                }else{
-                    break;
-                }
+    /**
+     * scans an integer constant, which must not be larger than
+     * Integer.MAX_VALUE. The value is accumulated while scanning,
+     * so no parse is needed to check the bound.
+     * @return the INTCONST token or an error token
+     */
+    private Token scanInteger() throws IOException {
+        long value = 0;
+        do {
+            if (value <= Integer.MAX_VALUE) {
+                value = value * 10 + Character.digit(currentChar, 10);
             }
-            // if it reached the end of the file, any further
-            // calls will return a token of type EOF
-            // with a spelling of "" (empty string)
-            return new Token(Token.Kind.EOF,"",
-                    lineNum());
-
-
+            takeChar();
+        } while (Character.isDigit(currentChar));
+        if (value > Integer.MAX_VALUE) {
+            return lexErrorToken("Integer too large");
+        }
+        return token(Token.Kind.INTCONST, tokenContent.toString());
     }
 
     public static void main(String[] args) throws IOException {
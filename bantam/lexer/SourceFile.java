@@ -16,7 +16,7 @@
 
 package proj8BogatyrevDimitrovWang.bantam.lexer;
 
-import bantam.util.CompilationException;
+import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
 
 import java.io.*;
 
@@ -29,10 +29,10 @@ class SourceFile
     public static final char CR = '\r';  // carriage return character
     public static final char EOF = '\u0000';     // end of file character
 
-    private Reader sourceReader;   // the reader of the data
+    final Reader sourceReader;     // the reader of the data
     private int currentLineNumber; // for bantam error messages
     private int prevChar;          // the previous character read
-    private String filename;       // the file currently being scanned.
+    private final String filename; // the file currently being scanned.
 
     /**
      * creates a new SourceFile object for the file with the given name
@@ -41,14 +41,7 @@ class SourceFile
      * @throws CompilationException if the file is not found
      */
     SourceFile(String filename) {
-        try {
-            sourceReader = new FileReader(filename);
-        } catch (FileNotFoundException e) {
-            throw new CompilationException("File " + filename + "not found.", e);
-        }
-        currentLineNumber = 1;
-        prevChar = -1;
-        this.filename = filename;
+        this(openFile(filename), filename);
     }
 
     /**
@@ -57,9 +50,36 @@ class SourceFile
      * @param in the Reader that provides the characters to be processes
      */
     SourceFile(Reader in) {
+        this(in, null);
+    }
+
+    /**
+     * creates a new SourceFile object for the given Reader, remembering
+     * the name of the file it reads from (null if it is not a file)
+     *
+     * @param in the Reader that provides the characters to be processes
+     * @param filename the name of the file being read, or null
+     */
+    SourceFile(Reader in, String filename) {
         sourceReader = in;
         currentLineNumber = 1;
         prevChar = -1;
+        this.filename = filename;
+    }
+
+    /**
+     * opens a Reader for the file with the given name
+     *
+     * @param filename the name of the file to be read.
+     * @return a Reader for the file
+     * @throws CompilationException if the file is not found
+     */
+    static Reader openFile(String filename) {
+        try {
+            return new FileReader(filename);
+        } catch (FileNotFoundException e) {
+            throw new CompilationException("File " + filename + "not found.", e);
+        }
     }
 
     int getCurrentLineNumber() {
@@ -0,0 +1,261 @@
+/*
+ * File: StreamingLexer.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
+import proj8BogatyrevDimitrovWang.bantam.util.Error;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * A push-style lexer: the input is handed to it in chunks, as it arrives,
+ * and each token is passed to a consumer as soon as it is complete. The
+ * tokens and errors are exactly those the Scanner finds in the whole input.
+ *
+ * Chunks can be UTF-8 bytes, which are decoded through a window of a fixed
+ * size (a character split between two chunks is completed by the second
+ * one), or characters. The tokenizing is done by a DfaScanner in push mode,
+ * which carries a half-scanned token (such as a string or a block comment)
+ * over to the next chunk. So the memory used does not grow with the input:
+ * it is bounded by the window plus the longest token.
+ *
+ * Bytes can be pulled from a ReadableByteChannel with lex(), or pushed by
+ * a Flow.Publisher, to which the lexer subscribes as a Flow.Subscriber
+ * that asks for one buffer at a time.
+ */
+public class StreamingLexer implements Flow.Subscriber<ByteBuffer>
+{
+    /** the size of the windows if none is given */
+    public static final int DEFAULT_WINDOW_SIZE = 8192;
+
+    private final DfaScanner dfa;          // tokenizes the pushed characters
+    private final ErrorHandler errorHandler;
+    private final Consumer<Token> sink;    // receives the tokens
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;        // bytes waiting to be decoded
+    private final CharBuffer chars;        // the window of decoded characters
+    private Flow.Subscription subscription;
+    private boolean finished;
+
+    /**
+     * creates a lexer with windows of the default size
+     *
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table identifier spellings are interned in, or null
+     * @param sink receives the tokens, the last one being the EOF token
+     */
+    public StreamingLexer(ErrorHandler handler, NameTable nameTable,
+                          Consumer<Token> sink) {
+        this(handler, nameTable, sink, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * creates a lexer whose windows have the given size
+     *
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table identifier spellings are interned in, or null
+     * @param sink receives the tokens, the last one being the EOF token
+     * @param windowSize the number of bytes (and of characters) to decode
+     *                   at a time
+     */
+    public StreamingLexer(ErrorHandler handler, NameTable nameTable,
+                          Consumer<Token> sink, int windowSize) {
+        dfa = new DfaScanner(handler, nameTable);
+        errorHandler = handler;
+        this.sink = sink;
+        decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocate(windowSize);
+        // UTF-8 never decodes to more chars than it has bytes
+        chars = CharBuffer.allocate(windowSize);
+    }
+
+    /**
+     * lexes everything that can be read from the channel
+     *
+     * @param channel the source of UTF-8 bytes, which is read to its end
+     * @param handler the ErrorHandler that collects all the errors found
+     * @param nameTable the table identifier spellings are interned in, or null
+     * @param sink receives the tokens, the last one being the EOF token
+     */
+    public static void lex(ReadableByteChannel channel, ErrorHandler handler,
+                           NameTable nameTable, Consumer<Token> sink)
+            throws IOException {
+        StreamingLexer lexer = new StreamingLexer(handler, nameTable, sink);
+        ByteBuffer chunk = ByteBuffer.allocate(DEFAULT_WINDOW_SIZE);
+        while (channel.read(chunk) >= 0) {
+            chunk.flip();
+            lexer.feed(chunk);
+            chunk.clear();
+        }
+        lexer.finish();
+    }
+
+    /**
+     * lexes the next chunk of UTF-8 bytes
+     *
+     * @param chunk the bytes, all of which are consumed
+     */
+    public void feed(ByteBuffer chunk) {
+        while (chunk.hasRemaining() && !finished) {
+            int n = Math.min(bytes.remaining(), chunk.remaining());
+            ByteBuffer part = chunk.slice();
+            part.limit(n);
+            bytes.put(part);
+            chunk.position(chunk.position() + n);
+            decode(false);
+        }
+    }
+
+    /**
+     * lexes the next chunk of characters
+     *
+     * @param text holds the characters
+     * @param offset the index of the first character of the chunk
+     * @param length the number of characters in the chunk
+     */
+    public void feed(char[] text, int offset, int length) {
+        if (!finished) {
+            dfa.push(text, offset, offset + length, sink);
+        }
+    }
+
+    /**
+     * ends the input: lexes whatever is left of it and passes the last
+     * tokens, ending with the EOF token, to the consumer
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        decode(true);
+        finished = true;
+        dfa.pushEnd(sink);
+    }
+
+    /**
+     * decodes the waiting bytes and pushes the characters to the DFA,
+     * leaving the bytes of an incomplete character for the next chunk
+     *
+     * @param endOfInput whether no more bytes will follow
+     */
+    private void decode(boolean endOfInput) {
+        bytes.flip();
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfInput);
+            if (endOfInput && result.isUnderflow()) {
+                result = decoder.flush(chars);
+            }
+            chars.flip();
+            dfa.push(chars.array(), chars.position(), chars.limit(), sink);
+            chars.clear();
+        } while (result.isOverflow());
+        bytes.compact();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        feed(item);
+        subscription.request(1);
+    }
+
+    /**
+     * registers the failure of the publisher as an error and ends the input
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        errorHandler.register(Error.Kind.LEX_ERROR,
+                "Exception: the input failed: " + throwable.getMessage());
+        finish();
+    }
+
+    @Override
+    public void onComplete() {
+        finish();
+    }
+
+    /**
+     * lexes each file both with the Scanner and in chunks of several sizes
+     * with a StreamingLexer and reports whether they produced the same
+     * Tokens and errors
+     */
+    public static void main(String[] args) throws IOException {
+        int[] chunkSizes = {1, 3, 4093, DEFAULT_WINDOW_SIZE * 4};
+        boolean allSame = true;
+        for (String arg : args) {
+            boolean same = true;
+            for (int chunkSize : chunkSizes) {
+                try (FileChannel channel = FileChannel.open(Path.of(arg))) {
+                    ErrorHandler scannerErrors = new ErrorHandler();
+                    ErrorHandler streamErrors = new ErrorHandler();
+                    List<Token> tokens = new ArrayList<>();
+                    StreamingLexer lexer = new StreamingLexer(streamErrors, null,
+                            tokens::add);
+                    ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+                    while (channel.read(chunk) >= 0) {
+                        chunk.flip();
+                        lexer.feed(chunk);
+                        chunk.clear();
+                    }
+                    lexer.finish();
+
+                    Lexer streamed = new Lexer() {
+                        private int next;
+
+                        @Override
+                        public Token scan() {
+                            return tokens.get(Math.min(next++, tokens.size() - 1));
+                        }
+                    };
+                    // memory-mapped, so that it decodes UTF-8 as well
+                    String difference = DfaScanner.compare(
+                            new Scanner(arg, scannerErrors, true), scannerErrors,
+                            streamed, streamErrors);
+                    if (difference != null) {
+                        System.out.println(arg + " in chunks of " + chunkSize +
+                                " bytes: " + difference);
+                        same = false;
+                    }
+                } catch (CompilationException e) {
+                    System.out.println(arg + ": " + e.getMessage());
+                    same = false;
+                }
+            }
+            if (same) {
+                System.out.println(arg + ": identical");
+            }
+            allSame &= same;
+        }
+        if (!allSame) {
+            System.exit(1);
+        }
+    }
+}
@@ -15,8 +15,6 @@
 
  package proj8BogatyrevDimitrovWang.bantam.lexer;
 
- import java.util.Set;
-
  /**
   * This class represents a meaningful sequence of characters in the
   * source code.
@@ -29,6 +27,14 @@
      public String spelling;
      /** the line number where the token was found in the source code */
      public int position;
+     /** the column of the token's first character, counting from 1 */
+     public int column;
+     /** the offset of the token's first character in the source */
+     public int startOffset;
+     /** the offset just past the token's last character in the source */
+     public int endOffset;
+     /** which operator an operator token is, or null for any other token */
+     public Operator operator;
 
      public String getSpelling() {
          return spelling;
@@ -37,25 +43,37 @@
 
      /**
       * constructor
+      * The scanners recognize boolean constants and keywords (see Keywords)
+      * before creating the token, so the kind is never IDENTIFIER for them.
       * @param kind the Kind of token to be created
       * @param spelling the characters making up the token
       * @param position the line number in the source file containing the token
       */
      Token(Kind kind, String spelling, int position) {
+         this.kind = kind;
          this.spelling = spelling;
          this.position = position;
+         this.operator = Operator.of(kind, spelling);
+     }
 
-         // patch the kind field in the cases of boolean constants and keywords,
-         // which are not of kind IDENTIFIER
-         if (kind == Kind.IDENTIFIER && (spelling.equals("true") || spelling.equals("false"))) {
-             this.kind = Kind.BOOLEAN;
-         }
-         else if (kind == Kind.IDENTIFIER && reservedWords.contains(spelling)) {
-             this.kind = Enum.valueOf(Kind.class, spelling.toUpperCase());
-         }
-         else {
-             this.kind = kind;
-         }
+     /**
+      * constructor for a token whose place in the source is known exactly
+      * @param kind the Kind of token to be created
+      * @param spelling the characters making up the token
+      * @param position the line number of the token's first character
+      * @param column the column of the token's first character
+      * @param startOffset the offset of the token's first character
+      * @param endOffset the offset just past the token's last character
+      */
+     Token(Kind kind, String spelling, int position, int column,
+           int startOffset, int endOffset) {
+         this.kind = kind;
+         this.spelling = spelling;
+         this.position = position;
+         this.column = column;
+         this.startOffset = startOffset;
+         this.endOffset = endOffset;
+         this.operator = Operator.of(kind, spelling);
      }
 
      /**
@@ -92,9 +110,57 @@
          RETURN, WHILE
      }
 
-     /** a set of all the reserved words of Bantam Java */
-     private static Set<String> reservedWords = Set.of("break", "cast", "class", "var",
-             "else", "extends", "for", "if", "instanceof", "new", "return", "while");
+     /**
+      * The operators. Several of them share a Kind (+ and - are both
+      * PLUSMINUS, for example), so this tells them apart without looking
+      * at the spelling.
+      */
+     public enum Operator
+     {
+         OR, AND,                            // BINARYLOGIC
+         EQ, NE, LT, GT, LEQ, GEQ,           // COMPARE
+         PLUS, MINUS,                        // PLUSMINUS
+         TIMES, DIVIDE, MODULUS,             // MULDIV
+         INCR, DECR, NOT, ASSIGN;            // UNARYINCR, UNARYDECR, UNARYNOT, ASSIGN
+
+         /**
+          * @param kind the Kind of a token
+          * @param spelling the spelling of the token
+          * @return the operator the token is, or null if it isn't one
+          */
+         static Operator of(Kind kind, String spelling) {
+             switch (kind) {
+                 case BINARYLOGIC:
+                     return spelling.charAt(0) == '&' ? AND : OR;
+                 case COMPARE:
+                     boolean orEqual = spelling.length() == 2;
+                     switch (spelling.charAt(0)) {
+                         case '=': return EQ;
+                         case '!': return NE;
+                         case '<': return orEqual ? LEQ : LT;
+                         default:  return orEqual ? GEQ : GT;
+                     }
+                 case PLUSMINUS:
+                     return spelling.charAt(0) == '+' ? PLUS : MINUS;
+                 case MULDIV:
+                     switch (spelling.charAt(0)) {
+                         case '*': return TIMES;
+                         case '/': return DIVIDE;
+                         default:  return MODULUS;
+                     }
+                 case UNARYINCR:
+                     return INCR;
+                 case UNARYDECR:
+                     return DECR;
+                 case UNARYNOT:
+                     return NOT;
+                 case ASSIGN:
+                     return ASSIGN;
+                 default:
+                     return null;
+             }
+         }
+     }
 
  }
 
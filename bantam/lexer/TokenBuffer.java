@@ -0,0 +1,389 @@
+/*
+ * File: TokenBuffer.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.lexer;
+
+import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * All the tokens of one source file, lexed up front and stored as parallel
+ * arrays of primitives instead of as Token objects: the kind, the offset of
+ * the first character in the source, the length, the line number and the
+ * column of each token. The source characters are kept, so a token's
+ * spelling is only worked out when it is asked for. This is meant for tools
+ * that walk the tokens more than once (formatters, highlighters, reparsing).
+ *
+ * The last token is always the EOF token. A Parser reads the buffer
+ * through a Lexer returned by lexer(), like it reads a Scanner.
+ */
+public class TokenBuffer
+{
+    private static final Token.Kind[] KINDS = Token.Kind.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final char[] source;       // the characters that were lexed
+    private final String filename;     // the file they came from, or null
+    private final NameTable nameTable; // identifier spellings are interned here
+    private byte[] kinds;              // ordinal of each token's Kind
+    private int[] starts;              // source offset of each token
+    private int[] lengths;             // number of characters of each token
+    private int[] lines;               // line number of each token
+    private int[] columns;             // column of each token, from 1
+    private int size;                  // the number of tokens
+    private int lineStart = -1;        // start of the line of the last token
+
+    TokenBuffer(char[] source, String filename, NameTable nameTable) {
+        this.source = source;
+        this.filename = filename;
+        this.nameTable = nameTable != null ? nameTable : new NameTable();
+        kinds = new byte[INITIAL_CAPACITY];
+        starts = new int[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        lines = new int[INITIAL_CAPACITY];
+        columns = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * lexes the file with the given name
+     *
+     * @param filename the name of the file to be lexed
+     * @param handler the ErrorHandler that collects the lexical errors
+     * @param nameTable the table identifier spellings are interned in,
+     *                  or null to use a table of the buffer's own
+     * @return the tokens of the file
+     * @throws CompilationException if the file can't be read
+     */
+    public static TokenBuffer lex(String filename, ErrorHandler handler,
+                                  NameTable nameTable) {
+        try (Reader reader = SourceFile.openFile(filename)) {
+            return lex(readAll(reader), filename, handler, nameTable);
+        } catch (IOException e) {
+            throw new CompilationException("File " + filename + " could not be read.", e);
+        }
+    }
+
+    /**
+     * lexes the given characters
+     *
+     * @param source the characters of a Bantam file; the buffer keeps
+     *               the array, so it must not be changed afterwards
+     * @param filename the name of the file they came from, or null
+     * @param handler the ErrorHandler that collects the lexical errors
+     * @param nameTable the table identifier spellings are interned in,
+     *                  or null to use a table of the buffer's own
+     * @return the tokens of the source
+     */
+    public static TokenBuffer lex(char[] source, String filename,
+                                  ErrorHandler handler, NameTable nameTable) {
+        return lex(source, 0, source.length, 1, filename, handler, nameTable);
+    }
+
+    /**
+     * lexes the characters source[start..end), as when part of a file is
+     * lexed again after it was edited. The tokens' offsets are indices
+     * into the whole array.
+     *
+     * @param source the characters of a Bantam file; the buffer keeps
+     *               the array, so it must not be changed afterwards
+     * @param start the index of the first character to lex, which must
+     *              not be inside a token
+     * @param end the index just past the last character to lex
+     * @param firstLine the line number of source[start]
+     * @param filename the name of the file they came from, or null
+     * @param handler the ErrorHandler that collects the lexical errors
+     * @param nameTable the table identifier spellings are interned in,
+     *                  or null to use a table of the buffer's own
+     * @return the tokens of the range, followed by an EOF token at its end
+     */
+    public static TokenBuffer lex(char[] source, int start, int end, int firstLine,
+                                  String filename, ErrorHandler handler,
+                                  NameTable nameTable) {
+        TokenBuffer tokens = new TokenBuffer(source, filename, nameTable);
+        Scanner scanner = new Scanner(new BufferedSourceFile(source, start,
+                end, firstLine, filename), handler, tokens.nameTable);
+        if (start > 0) {
+            int lineStart = start;
+            while (lineStart > 0 && source[lineStart - 1] != SourceFile.EOL &&
+                    source[lineStart - 1] != SourceFile.CR) {
+                lineStart--;
+            }
+            scanner.resumeAt(start, firstLine, lineStart,
+                    source[start - 1] == SourceFile.CR ? start - 1 : -2);
+        }
+        try {
+            Token token;
+            do {
+                token = scanner.scan();
+                tokens.add(token.kind, token.startOffset, token.endOffset,
+                        token.position);
+            } while (token.kind != Token.Kind.EOF);
+        } catch (IOException e) {
+            // an array is never the cause of an IOException
+            throw new CompilationException("Unexpected read error.", e);
+        }
+        tokens.trim();
+        return tokens;
+    }
+
+    /**
+     * @param reader a Reader
+     * @return all the characters the reader provides
+     */
+    static char[] readAll(Reader reader) throws IOException {
+        CharArrayWriter chars = new CharArrayWriter();
+        reader.transferTo(chars);
+        return chars.toCharArray();
+    }
+
+    /** appends a token, growing the arrays when they are full */
+    void add(Token.Kind kind, int start, int end, int line) {
+        add(kind.ordinal(), start, end - start, line);
+    }
+
+    /**
+     * appends the tokens other[from..to), whose line numbers are off by
+     * lineShift, to this buffer
+     */
+    void append(TokenBuffer other, int from, int to, int lineShift) {
+        for (int i = from; i < to; i++) {
+            add(other.kinds[i], other.starts[i], other.lengths[i],
+                    other.lines[i] + lineShift);
+        }
+    }
+
+    private void add(int kind, int start, int length, int line) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+        kinds[size] = (byte) kind;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = start - lineStart(start) + 1;
+        size++;
+    }
+
+    /**
+     * finds the start of the line of a token that does not start before
+     * the last one added. Only the characters since the start of the last
+     * token are looked at, so each character of the source is looked at
+     * once in all (apart from the line of the first token).
+     *
+     * @param start the offset of the token's first character
+     * @return the offset of the first character of its line
+     */
+    private int lineStart(int start) {
+        int stop = size > 0 && lineStart >= 0 ? starts[size - 1] : 0;
+        for (int i = start; i > stop; i--) {
+            if (source[i - 1] == SourceFile.EOL || source[i - 1] == SourceFile.CR) {
+                lineStart = i;
+                return i;
+            }
+        }
+        if (stop == 0) {
+            lineStart = 0;
+        }
+        return lineStart;
+    }
+
+    /** shrinks the arrays to the number of tokens */
+    void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        starts = Arrays.copyOf(starts, size);
+        lengths = Arrays.copyOf(lengths, size);
+        lines = Arrays.copyOf(lines, size);
+        columns = Arrays.copyOf(columns, size);
+    }
+
+    /**
+     * @return the number of tokens, including the EOF token at the end
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the name of the file the tokens came from, or null
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the kind of the token
+     */
+    public Token.Kind kind(int index) {
+        return KINDS[kinds[index]];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the offset of the token's first character in the source
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the number of characters of the token
+     */
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the line number of the token, as in Token.position
+     */
+    public int line(int index) {
+        return lines[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the column of the token's first character, counting from 1
+     */
+    public int column(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the characters making up the token. Keywords and
+     * identifiers get their canonical Strings; anything else is
+     * copied out of the source.
+     */
+    public String spelling(int index) {
+        int start = starts[index];
+        int length = lengths[index];
+        switch (kind(index)) {
+            case IDENTIFIER:
+                return nameTable.intern(source, start, length);
+            case INTCONST: case STRCONST: case COMMENT: case ERROR:
+                return new String(source, start, length);
+            default:
+                int keyword = Keywords.find(source, start, length);
+                return keyword >= 0 ? Keywords.spellingOf(keyword) :
+                        new String(source, start, length);
+        }
+    }
+
+    /**
+     * @param index the index of a token
+     * @return a new Token object for the token
+     */
+    public Token get(int index) {
+        int start = starts[index];
+        return new Token(kind(index), spelling(index), lines[index],
+                columns[index], start, start + lengths[index]);
+    }
+
+    /**
+     * finds the "}" that closes the given "{" by counting braces, without
+     * making Token objects, as when a method body is skipped
+     *
+     * @param open the index of a "{" token
+     * @return the index of the matching "}", or -1 if the EOF token or a
+     * "class" keyword comes first
+     */
+    public int matchingBrace(int open) {
+        byte lcurly = (byte) Token.Kind.LCURLY.ordinal();
+        byte rcurly = (byte) Token.Kind.RCURLY.ordinal();
+        byte stop = (byte) Token.Kind.CLASS.ordinal();
+        int depth = 0;
+        for (int i = open; i < size - 1; i++) {
+            byte kind = kinds[i];
+            if (kind == lcurly) {
+                depth++;
+            }
+            else if (kind == rcurly && --depth == 0) {
+                return i;
+            }
+            else if (kind == stop) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return a Lexer that returns the tokens of the buffer from the first
+     * one on, as a Scanner would return them
+     */
+    public Cursor lexer() {
+        return lexer(0);
+    }
+
+    /**
+     * @param first the index of the first token to return
+     * @return a Lexer that returns the tokens of the buffer from the
+     * given one on
+     */
+    public Cursor lexer(int first) {
+        return new Cursor(first);
+    }
+
+    /**
+     * A Lexer over the tokens of the buffer. Once it reaches the EOF token
+     * it keeps returning it.
+     */
+    public class Cursor implements Lexer
+    {
+        private int next; // the index of the token the next scan() returns
+
+        private Cursor(int first) {
+            next = first;
+        }
+
+        @Override
+        public Token scan() {
+            Token token = get(next);
+            if (next < size - 1) {
+                next++;
+            }
+            return token;
+        }
+
+        /**
+         * @return the index of the token the next call to scan() returns
+         */
+        public int nextIndex() {
+            return next;
+        }
+
+        /**
+         * makes the next call to scan() return the token with the given
+         * index, skipping the tokens in between
+         *
+         * @param index the index of a token of the buffer
+         */
+        public void seek(int index) {
+            next = Math.min(index, size - 1);
+        }
+
+        /**
+         * @return the buffer the tokens come from
+         */
+        public TokenBuffer buffer() {
+            return TokenBuffer.this;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * File: AstFileCheck.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.parser;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.ASTNode;
+import proj8BogatyrevDimitrovWang.bantam.ast.AstFile;
+import proj8BogatyrevDimitrovWang.bantam.ast.FlatAst;
+import proj8BogatyrevDimitrovWang.bantam.ast.ListNode;
+import proj8BogatyrevDimitrovWang.bantam.ast.Program;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * Checks that the ASTs of the Bantam files given as command line
+ * arguments come back the same from an AstFile: each file is parsed, its
+ * AST is saved and loaded again, and the loaded AST is compared with the
+ * parsed one node by node, field by field. The time a load takes (mapping
+ * the file and building the nodes) is compared with the time a parse
+ * takes, and the size of the AstFile with that of the source.
+ */
+public class AstFileCheck
+{
+    /** how long each of the timings is repeated, in nanoseconds */
+    private static final long TIME_NANOS = 1_000_000_000L;
+
+    /** something timed, which must give the same AST each time */
+    private interface Task
+    {
+        Program run() throws IOException;
+    }
+
+    /**
+     * compares the two ASTs without recursion, so that deep ones can be
+     * compared too
+     *
+     * @return null if they are the same, or else a place where they differ
+     */
+    private static String difference(ASTNode expected, ASTNode actual) {
+        Deque<ASTNode[]> pairs = new ArrayDeque<>();
+        pairs.push(new ASTNode[] {expected, actual});
+        while (!pairs.isEmpty()) {
+            ASTNode[] pair = pairs.pop();
+            ASTNode a = pair[0];
+            ASTNode b = pair[1];
+            if (a == null || b == null) {
+                if (a != b) {
+                    return "a node is missing near line " +
+                            (a != null ? a.getLineNum() : b.getLineNum());
+                }
+                continue;
+            }
+            // a LazyMethod is a Method with its body still to come
+            Class<?> type = a.getClass() == LazyMethod.class ?
+                    a.getClass().getSuperclass() : a.getClass();
+            if (type != b.getClass()) {
+                return "a " + type.getSimpleName() + " became a " +
+                        b.getClass().getSimpleName() + " at line " + a.getLineNum();
+            }
+            if (a instanceof ListNode) {
+                ListNode listA = (ListNode) a;
+                ListNode listB = (ListNode) b;
+                if (listA.getSize() != listB.getSize() ||
+                        a.getLineNum() != b.getLineNum()) {
+                    return "a " + type.getSimpleName() + " changed at line " +
+                            a.getLineNum();
+                }
+                for (int i = 0; i < listA.getSize(); i++) {
+                    pairs.push(new ASTNode[] {listA.get(i), listB.get(i)});
+                }
+                continue;
+            }
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    Object valueA = value(field, a);
+                    Object valueB = value(field, b);
+                    if (valueA instanceof ASTNode || valueB instanceof ASTNode) {
+                        pairs.push(new ASTNode[] {(ASTNode) valueA, (ASTNode) valueB});
+                    }
+                    else if (!Objects.equals(valueA, valueB)) {
+                        return "the " + field.getName() + " of a " +
+                                type.getSimpleName() + " at line " + a.getLineNum() +
+                                " changed from " + valueA + " to " + valueB;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of the field of the node; a LazyMethod's body is
+     * parsed first, by way of its getter
+     */
+    private static Object value(Field field, ASTNode node) {
+        if (node instanceof LazyMethod && field.getName().equals("stmtList")) {
+            return ((LazyMethod) node).getStmtList();
+        }
+        try {
+            return field.get(node);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * repeats the task for a while, after a warm-up of the same length
+     *
+     * @return the average time of a run, in microseconds
+     */
+    private static double time(Task task) throws IOException {
+        double micros = 0;
+        for (int round = 0; round < 2; round++) {
+            long runs = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                task.run();
+                runs++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < TIME_NANOS);
+            micros = elapsed / 1e3 / runs;
+        }
+        return micros;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: AstFileCheck file.btm ...");
+            return;
+        }
+        Path saved = Files.createTempFile("ast", ".bast");
+        try {
+            int failed = 0;
+            for (String arg : args) {
+                Program parsed = new Parser(new ErrorHandler()).parse(arg);
+                AstFile.write(FlatAst.of(parsed, arg), saved);
+                Program loaded = AstFile.read(saved).toProgram();
+                String difference = difference(parsed, loaded);
+                if (difference != null) {
+                    failed++;
+                    System.out.println(arg + ": " + difference);
+                }
+                else if (args.length == 1) {
+                    double parse = time(() -> new Parser(new ErrorHandler()).parse(arg));
+                    double load = time(() -> AstFile.read(saved).toProgram());
+                    System.out.printf("%s: %,d bytes of source, %,d bytes saved%n",
+                            arg, Files.size(Path.of(arg)), Files.size(saved));
+                    System.out.printf("  parse %.1f us, load %.1f us (%.1fx)%n",
+                            parse, load, parse / load);
+                }
+            }
+            System.out.printf("%d of %d files came back the same%n",
+                    args.length - failed, args.length);
+        } finally {
+            Files.deleteIfExists(saved);
+        }
+    }
+}
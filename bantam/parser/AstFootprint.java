@@ -0,0 +1,297 @@
+/*
+ * File: AstFootprint.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.parser;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.AstInterner;
+import proj8BogatyrevDimitrovWang.bantam.ast.ClassList;
+import proj8BogatyrevDimitrovWang.bantam.ast.ExprList;
+import proj8BogatyrevDimitrovWang.bantam.ast.FlatAst;
+import proj8BogatyrevDimitrovWang.bantam.ast.FormalList;
+import proj8BogatyrevDimitrovWang.bantam.ast.LineTable;
+import proj8BogatyrevDimitrovWang.bantam.ast.ListNode;
+import proj8BogatyrevDimitrovWang.bantam.ast.MemberList;
+import proj8BogatyrevDimitrovWang.bantam.ast.Program;
+import proj8BogatyrevDimitrovWang.bantam.ast.StmtList;
+import proj8BogatyrevDimitrovWang.bantam.ast.VarExpr;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+import proj8BogatyrevDimitrovWang.bantam.visitor.IntVisitor;
+import proj8BogatyrevDimitrovWang.bantam.visitor.Visitor;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures how much heap the ASTs of the Bantam files given as command
+ * line arguments take up: each file is parsed a number of times, the ASTs
+ * are kept, and the heap in use after a garbage collection is compared
+ * with what it was before. The identifiers are shared by all the copies
+ * (they come from one NameTable), so only the nodes are counted. The
+ * number of list nodes and how long they are is reported too, since the
+ * lists are most of the nodes of a typical program.
+ * The same is done for the FlatAsts of the files, and the time a walk of
+ * the whole tree takes is compared: a Visitor and an IntVisitor over the
+ * nodes, a Cursor over the FlatAst (with next(), and from child to
+ * sibling to parent), and a loop along its arrays.
+ * Last, the ASTs are made again from the FlatAsts with their constants
+ * and variables shared (see AstInterner) and their lines in LineTables,
+ * and the time it takes to hash an AST and to compare two copies of it
+ * structurally is given.
+ * The results are most stable with -XX:+UseSerialGC.
+ */
+public class AstFootprint
+{
+    /** how many ASTs of each file are kept */
+    private static final int COPIES = 50;
+
+    /** how long each walk is repeated, in nanoseconds */
+    private static final long WALK_NANOS = 1_000_000_000L;
+
+    /** a walk of a whole tree that returns the number of variables */
+    private interface Walk
+    {
+        int run();
+    }
+
+    /** counts the variables of an AST */
+    private static class VarCounter extends Visitor
+    {
+        private int count;
+
+        @Override
+        public Object visit(VarExpr node) {
+            count++;
+            return super.visit(node);
+        }
+    }
+
+    /** counts the variables of an AST without boxing the counts */
+    private static class IntVarCounter extends IntVisitor<Void>
+    {
+        @Override
+        public int visit(VarExpr node, Void context) {
+            return 1 + super.visit(node, context);
+        }
+    }
+
+    /** counts the list nodes of an AST by their length */
+    private static class ListCounter extends Visitor
+    {
+        private final long[] bySize = new long[4]; // 0, 1, 2, 3 or more
+        private long elements;
+
+        private void count(ListNode node) {
+            bySize[Math.min(node.getSize(), 3)]++;
+            elements += node.getSize();
+        }
+
+        @Override
+        public Object visit(ClassList node) {
+            count(node);
+            return super.visit(node);
+        }
+
+        @Override
+        public Object visit(MemberList node) {
+            count(node);
+            return super.visit(node);
+        }
+
+        @Override
+        public Object visit(FormalList node) {
+            count(node);
+            return super.visit(node);
+        }
+
+        @Override
+        public Object visit(StmtList node) {
+            count(node);
+            return super.visit(node);
+        }
+
+        @Override
+        public Object visit(ExprList node) {
+            count(node);
+            return super.visit(node);
+        }
+    }
+
+    /**
+     * @return the number of variables of the FlatAst, found with
+     * Cursor.next()
+     */
+    private static int countVars(FlatAst ast) {
+        FlatAst.Cursor cursor = ast.cursor();
+        int count = 0;
+        do {
+            if (cursor.kind() == FlatAst.Kind.VAR_EXPR) {
+                count++;
+            }
+        } while (cursor.next());
+        return count;
+    }
+
+    /**
+     * @return the number of variables of the FlatAst, found by moving a
+     * Cursor from child to sibling to parent
+     */
+    private static int countVarsByPath(FlatAst ast) {
+        FlatAst.Cursor cursor = ast.cursor();
+        int count = 0;
+        while (true) {
+            if (cursor.kind() == FlatAst.Kind.VAR_EXPR) {
+                count++;
+            }
+            if (cursor.firstChild()) {
+                continue;
+            }
+            while (!cursor.nextSibling()) {
+                if (!cursor.parent()) {
+                    return count;
+                }
+            }
+        }
+    }
+
+    /**
+     * repeats the walk for a while, after a warm-up of the same length
+     *
+     * @return the average time of a walk, in microseconds
+     */
+    private static double time(Walk walk) {
+        double micros = 0;
+        int check = walk.run();
+        for (int round = 0; round < 2; round++) {
+            long runs = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                if (walk.run() != check) {
+                    throw new IllegalStateException("The walks differ.");
+                }
+                runs++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < WALK_NANOS);
+            micros = elapsed / 1e3 / runs;
+        }
+        return micros;
+    }
+
+    /**
+     * @return the bytes of heap in use once the garbage has been collected
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // a few collections, since one may leave some of the garbage
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: AstFootprint file.btm ...");
+            return;
+        }
+        NameTable names = new NameTable();
+        for (String arg : args) {
+            // parsed once before measuring, so the names are in the table
+            new Parser(new ErrorHandler(), names).parse(arg);
+            Program[] kept = new Program[COPIES];
+            long before = usedHeap();
+            for (int i = 0; i < COPIES; i++) {
+                kept[i] = new Parser(new ErrorHandler(), names).parse(arg);
+            }
+            long perCopy = (usedHeap() - before) / COPIES;
+
+            FlatAst[] flat = new FlatAst[COPIES];
+            before = usedHeap();
+            for (int i = 0; i < COPIES; i++) {
+                flat[i] = new Parser(new ErrorHandler(), names).parseFlat(arg);
+            }
+            long perFlatCopy = (usedHeap() - before) / COPIES;
+
+            ListCounter counter = new ListCounter();
+            kept[0].accept(counter);
+            long lists = 0;
+            for (long count : counter.bySize) {
+                lists += count;
+            }
+            System.out.println(arg);
+            System.out.printf("  %,d bytes of source, %,d bytes of AST (%.1f per " +
+                    "source byte)%n", new File(arg).length(), perCopy,
+                    (double) perCopy / new File(arg).length());
+            System.out.printf("  %,d lists with %,d elements: %,d empty, " +
+                            "%,d of 1, %,d of 2, %,d longer%n", lists, counter.elements,
+                    counter.bySize[0], counter.bySize[1], counter.bySize[2],
+                    counter.bySize[3]);
+            System.out.printf("  FlatAst: %,d nodes, %,d bytes (%.1f times smaller)%n",
+                    flat[0].size(), perFlatCopy, (double) perCopy / perFlatCopy);
+
+            Program program = kept[0];
+            FlatAst ast = flat[0];
+            double visitor = time(() -> {
+                VarCounter varCounter = new VarCounter();
+                program.accept(varCounter);
+                return varCounter.count;
+            });
+            IntVarCounter intCounter = new IntVarCounter();
+            double intVisitor = time(() -> program.accept(intCounter, null));
+            double cursor = time(() -> countVars(ast));
+            double path = time(() -> countVarsByPath(ast));
+            double loop = time(() -> {
+                int count = 0;
+                for (int node = 0; node < ast.size(); node++) {
+                    if (ast.kind(node) == FlatAst.Kind.VAR_EXPR) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            System.out.printf("  full walks: Visitor %.1f us, IntVisitor %.1f us " +
+                    "(%.1fx), Cursor.next %.1f us (%.1fx), Cursor by path " +
+                    "%.1f us (%.1fx), loop %.1f us (%.1fx)%n",
+                    visitor, intVisitor, visitor / intVisitor, cursor,
+                    visitor / cursor, path, visitor / path, loop, visitor / loop);
+
+            Program[] interned = new Program[COPIES];
+            LineTable[] lines = new LineTable[COPIES];
+            AstInterner interner = null;
+            before = usedHeap();
+            for (int i = 0; i < COPIES; i++) {
+                interner = new AstInterner();
+                interned[i] = interner.intern(flat[i]);
+                lines[i] = new LineTable(flat[i]);
+            }
+            long perInternedCopy = (usedHeap() - before) / COPIES;
+            System.out.printf("  shared leaves: %,d of %,d are different, %,d bytes " +
+                            "with the lines (%.1f times smaller)%n",
+                    interner.getSharedCount(), interner.getRequests(), perInternedCopy,
+                    (double) perCopy / perInternedCopy);
+
+            // each copy is hashed once, the first few to warm up
+            long hashNanos = 0;
+            for (int i = 1; i < COPIES; i++) {
+                long start = System.nanoTime();
+                kept[i].structuralHash();
+                hashNanos = i > COPIES / 2 ? hashNanos + System.nanoTime() - start : 0;
+            }
+            double hashing = hashNanos / 1e3 / (COPIES - 1 - COPIES / 2);
+            if (kept[1].structuralHash() != interned[0].structuralHash() ||
+                    !kept[1].structurallyEquals(interned[0])) {
+                throw new IllegalStateException("The copies differ.");
+            }
+            double equality = time(() -> kept[1].structurallyEquals(kept[2]) ? 1 : 0);
+            System.out.printf("  structural hash %.1f us, equality of two copies " +
+                    "%.1f us%n", hashing, equality);
+        }
+    }
+}
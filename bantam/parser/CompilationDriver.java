@@ -0,0 +1,279 @@
+/*
+ * File: CompilationDriver.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.parser;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.ClassList;
+import proj8BogatyrevDimitrovWang.bantam.ast.Class_;
+import proj8BogatyrevDimitrovWang.bantam.ast.Program;
+import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
+import proj8BogatyrevDimitrovWang.bantam.util.ConcurrentNameTable;
+import proj8BogatyrevDimitrovWang.bantam.util.Error;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scans and parses many files at once, each on its own task of an
+ * Executor. Each file gets its own Parser and ErrorHandler (neither is
+ * thread-safe); the tasks of a compilation only share a
+ * ConcurrentNameTable, so the identifiers of all the files are canonical
+ * together and the names in the Program put together from them can be
+ * compared by reference, across files too. The results are put together
+ * in the order the files were given, whatever order the tasks finish in:
+ * the classes of all the files make up one Program, and the errors of all
+ * the files make up one list, file by file. Errors registered without a
+ * file name, as the lexers register theirs, are given the name of the
+ * file they were found in.
+ */
+public class CompilationDriver
+{
+    /** the outcome of parsing one file */
+    public static class FileResult
+    {
+        private final String filename;
+        private final Program program;
+        private final List<Error> errors;
+
+        FileResult(String filename, Program program, List<Error> errors) {
+            this.filename = filename;
+            this.program = program;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the name of the file
+         */
+        public String getFilename() {
+            return filename;
+        }
+
+        /**
+         * @return the AST of the file, which leaves out the parts that had
+         * syntax errors, or null if the file could not be read
+         */
+        public Program getProgram() {
+            return program;
+        }
+
+        /**
+         * @return the errors found in the file, as its ErrorHandler ordered them
+         */
+        public List<Error> getErrors() {
+            return errors;
+        }
+    }
+
+    /** the outcome of parsing all the files */
+    public static class Result
+    {
+        private final List<FileResult> files;
+        private final Program program;
+        private final List<Error> errors;
+
+        Result(List<FileResult> files, Program program, List<Error> errors) {
+            this.files = files;
+            this.program = program;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the result of each file, in the order the files were given
+         */
+        public List<FileResult> getFiles() {
+            return files;
+        }
+
+        /**
+         * @return a Program with the classes of all the files, in order
+         */
+        public Program getProgram() {
+            return program;
+        }
+
+        /**
+         * @return the errors of all the files, in order
+         */
+        public List<Error> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return true if any errors were found
+         */
+        public boolean errorsFound() {
+            return !errors.isEmpty();
+        }
+    }
+
+    private final Executor executor;
+    private final ParseCache cache; // null if every file is parsed
+
+    /**
+     * creates a driver that parses the files on the given executor
+     *
+     * @param executor runs one task per file
+     */
+    public CompilationDriver(Executor executor) {
+        this(executor, null);
+    }
+
+    /**
+     * creates a driver that parses the files on the given executor,
+     * taking the ASTs of files that have not changed from the cache
+     *
+     * @param executor runs one task per file
+     * @param cache the ASTs of files parsed before, or null
+     */
+    public CompilationDriver(Executor executor, ParseCache cache) {
+        this.executor = executor;
+        this.cache = cache;
+    }
+
+    /**
+     * @return an executor that runs each task on a virtual thread of its
+     * own if the JVM has them (Java 21 on), or else a pool with a thread
+     * per processor. It should be shut down when no longer needed.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // looked up by reflection so that this compiles on Java 17
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException |
+                 InvocationTargetException e) {
+            // before Java 21 (or without --enable-preview on 19 and 20)
+            return Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * scans and parses the files in parallel
+     *
+     * @param filenames the names of the Bantam files
+     * @return their ASTs and errors, put together in the order of the names
+     */
+    public Result compile(List<String> filenames) {
+        NameTable nameTable = new ConcurrentNameTable();
+        List<CompletableFuture<FileResult>> futures = new ArrayList<>();
+        for (String filename : filenames) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> compile(filename, nameTable), executor));
+        }
+
+        List<FileResult> files = new ArrayList<>();
+        ClassList classes = new ClassList(1);
+        List<Error> errors = new ArrayList<>();
+        for (CompletableFuture<FileResult> future : futures) {
+            FileResult file = future.join();
+            files.add(file);
+            if (file.getProgram() != null) {
+                for (Object aClass : file.getProgram().getClassList()) {
+                    classes.addElement((Class_) aClass);
+                }
+            }
+            errors.addAll(file.getErrors());
+        }
+        classes.freeze();
+        return new Result(Collections.unmodifiableList(files),
+                new Program(1, classes), Collections.unmodifiableList(errors));
+    }
+
+    /**
+     * scans and parses one file
+     *
+     * @param filename the name of the file
+     * @param nameTable the table of identifier names of the compilation
+     * @return its AST and errors
+     */
+    private FileResult compile(String filename, NameTable nameTable) {
+        ErrorHandler errorHandler = new ErrorHandler();
+        Program program = null;
+        try {
+            program = cache != null ? cache.parse(filename, errorHandler, nameTable) :
+                    new Parser(errorHandler, nameTable).parse(filename);
+        } catch (CompilationException | IOException e) {
+            // the file could not be read
+            errorHandler.register(Error.Kind.LEX_ERROR, filename, 0, e.getMessage());
+        }
+        return new FileResult(filename, program,
+                withFilename(errorHandler.getErrorList(), filename));
+    }
+
+    /**
+     * @param errors the errors found in a file, in order
+     * @param filename the name of the file
+     * @return the errors, with those that were registered without a file
+     * name (as the lexers register theirs) given the name of the file
+     */
+    private static List<Error> withFilename(List<Error> errors, String filename) {
+        List<Error> named = new ArrayList<>(errors.size());
+        for (Error error : errors) {
+            named.add(error.getFilename() != null ? error : new Error(error.getKind(),
+                    filename, error.getLineNum(), error.getMessage()));
+        }
+        return Collections.unmodifiableList(named);
+    }
+
+    /**
+     * parses the files given as arguments and prints the errors found.
+     * The options "-threads n" (a pool of n threads; 1 parses the files
+     * one after the other) and "-virtual" (a virtual thread per file)
+     * choose the executor; the default is a thread per processor.
+     * With "-cache dir", the ASTs are cached in the given directory.
+     */
+    public static void main(String[] args) throws IOException {
+        ExecutorService executor = null;
+        ParseCache cache = null;
+        List<String> filenames = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                executor = Executors.newFixedThreadPool(Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("-virtual")) {
+                executor = newVirtualThreadExecutor();
+            }
+            else if (args[i].equals("-cache") && i + 1 < args.length) {
+                cache = new ParseCache(Path.of(args[++i]),
+                        ParseCache.DEFAULT_MAX_BYTES);
+            }
+            else {
+                filenames.add(args[i]);
+            }
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors());
+        }
+
+        long start = System.nanoTime();
+        Result result = new CompilationDriver(executor, cache).compile(filenames);
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        for (Error error : result.getErrors()) {
+            System.out.println(error);
+        }
+        System.out.printf("%d files, %d classes, %d errors in %.1f ms%n",
+                filenames.size(), result.getProgram().getClassList().getSize(),
+                result.getErrors().size(), elapsed / 1e6);
+        if (cache != null) {
+            System.out.println(cache.report());
+        }
+    }
+}
@@ -0,0 +1,656 @@
+/*
+ * File: IncrementalParser.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.parser;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.ASTNode;
+import proj8BogatyrevDimitrovWang.bantam.ast.ClassList;
+import proj8BogatyrevDimitrovWang.bantam.ast.Class_;
+import proj8BogatyrevDimitrovWang.bantam.ast.Member;
+import proj8BogatyrevDimitrovWang.bantam.ast.MemberList;
+import proj8BogatyrevDimitrovWang.bantam.ast.Program;
+import proj8BogatyrevDimitrovWang.bantam.lexer.Token;
+import proj8BogatyrevDimitrovWang.bantam.lexer.TokenBuffer;
+import proj8BogatyrevDimitrovWang.bantam.util.Error;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+import proj8BogatyrevDimitrovWang.bantam.visitor.StackVisitor;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Keeps the AST of a source file up to date as the file is edited, for
+ * editors. After each edit only the member (field or method) the edit
+ * was made in is lexed and parsed again, and the new Member takes the
+ * place of the old one in the existing tree; the rest of the tree is
+ * kept, and so are the errors found in the other members. The AST and
+ * the errors are always those a parse of the whole file would give.
+ *
+ * To find the member an edit falls in, the start and end offset (and
+ * starting line) of each class and member are kept. An edited member
+ * may have syntax errors, as long as its braces still match, so that the
+ * parser recovers from them within the member. Otherwise its class is
+ * parsed again, and if that has errors too, the whole file is. After a
+ * parse of the whole file that found errors, the members are parsed one
+ * by one too, to find out which errors each of them has; if some errors
+ * are not in any member (or the braces do not match), the whole file is
+ * parsed again on each edit until that is no longer so.
+ */
+public class IncrementalParser
+{
+    /** how much of the tree was parsed again after an edit */
+    public enum Scope { MEMBER, CLASS, FILE }
+
+    /** where a class or member is in the source */
+    private static class Span
+    {
+        int start; // the offset of its first token
+        int end;   // the offset just past its last token
+        int line;  // the line its first token is on
+        // for a member: the number of Members the parser made of it (none
+        // if it has an error that made the parser skip it), and its errors
+        int count = 1;
+        List<Error> errors = List.of();
+
+        Span(int start, int end, int line) {
+            this.start = start;
+            this.end = end;
+            this.line = line;
+        }
+
+        void shift(int delta, int lineDelta) {
+            start += delta;
+            end += delta;
+            line += lineDelta;
+            if (lineDelta != 0 && !errors.isEmpty()) {
+                List<Error> shifted = new ArrayList<>();
+                for (Error error : errors) {
+                    shifted.add(new Error(error.getKind(), error.getFilename(),
+                            error.getLineNum() + lineDelta, error.getMessage()));
+                }
+                errors = shifted;
+            }
+        }
+    }
+
+    /** where a class and each of its members are in the source */
+    private static class ClassSpan extends Span
+    {
+        final List<Span> members = new ArrayList<>();
+
+        ClassSpan(int start, int line) {
+            super(start, start, line);
+        }
+    }
+
+    private final String filename;
+    private final NameTable nameTable = new NameTable();
+    private char[] text;
+    private Program program;
+    private List<Error> errors;
+    private List<ClassSpan> spans; // null while the file has errors
+
+    /**
+     * parses the given source
+     *
+     * @param filename the name of the file, for the errors and the AST
+     * @param text the source
+     */
+    public IncrementalParser(String filename, CharSequence text) throws IOException {
+        this.filename = filename;
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        parseFile(chars);
+    }
+
+    /**
+     * @return the AST of the current source. Its lists are frozen, so
+     * after an edit of a member or a class this is a new Program, which
+     * shares the nodes of the other classes and members with the old one.
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * @return the errors found in the current source
+     */
+    public List<Error> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the current source
+     */
+    public String getText() {
+        return new String(text);
+    }
+
+    /**
+     * applies an edit to the source and updates the AST
+     *
+     * @param offset where the edit starts in the current source
+     * @param removed the number of characters removed from there
+     * @param inserted the characters inserted in their place
+     * @return how much had to be parsed again
+     */
+    public Scope edit(int offset, int removed, String inserted) throws IOException {
+        if (offset < 0 || removed < 0 || offset + removed > text.length) {
+            throw new IndexOutOfBoundsException("edit of [" + offset + ", " +
+                    (offset + removed) + ") in a source of length " + text.length);
+        }
+        int delta = inserted.length() - removed;
+        char[] edited = new char[text.length + delta];
+        System.arraycopy(text, 0, edited, 0, offset);
+        inserted.getChars(0, inserted.length(), edited, offset);
+        System.arraycopy(text, offset + removed, edited, offset + inserted.length(),
+                text.length - offset - removed);
+
+        int end = offset + removed;
+        int c = spans == null ? -1 : indexOf(spans, offset, end);
+        if (c >= 0) {
+            ClassSpan classSpan = spans.get(c);
+            int m = indexOf(classSpan.members, offset, end);
+            if (m >= 0 && reparseMember(edited, c, m, delta)) {
+                text = edited;
+                return Scope.MEMBER;
+            }
+            if (reparseClass(edited, c, delta)) {
+                text = edited;
+                return Scope.CLASS;
+            }
+        }
+        parseFile(edited);
+        return Scope.FILE;
+    }
+
+    /**
+     * @return the index of the span the edit of [start, end) falls in,
+     * or -1 if it falls in none of them
+     */
+    private static int indexOf(List<? extends Span> spans, int start, int end) {
+        int low = 0;
+        int high = spans.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Span span = spans.get(middle);
+            if (start >= span.end) {
+                low = middle + 1;
+            }
+            else if (start < span.start) {
+                high = middle - 1;
+            }
+            else {
+                return end <= span.end ? middle : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * parses the m-th member of the c-th class again after an edit within it
+     *
+     * @return whether the parser made the same of it as a parse of the
+     * whole file would
+     */
+    private boolean reparseMember(char[] edited, int c, int m, int delta)
+            throws IOException {
+        ClassSpan classSpan = spans.get(c);
+        Span span = classSpan.members.get(m);
+        int end = span.end + delta;
+        ErrorHandler errorHandler = new ErrorHandler();
+        TokenBuffer tokens = lex(edited, span.start, end, span.line, errorHandler);
+        if (tokens == null || !balanced(tokens)) {
+            return false;
+        }
+        List<Member> members = new Parser(errorHandler, nameTable).parseMembers(
+                tokens.lexer(), filename);
+        if (members == null || errors.size() - span.errors.size() +
+                errorHandler.getErrorList().size() >= ErrorHandler.MAX_ERRORS) {
+            // with a full ErrorHandler the parser stops recovering
+            return false;
+        }
+
+        int lineDelta = lineBreaks(edited, span.start, end) -
+                lineBreaks(text, span.start, span.end);
+        Class_ aClass = (Class_) program.getClassList().get(c);
+        MemberList memberList = aClass.getMemberList();
+        int first = 0; // the index of the span's first Member in the list
+        for (int i = 0; i < m; i++) {
+            first += classSpan.members.get(i).count;
+        }
+        // the class gets a new list, with the other members kept
+        MemberList newList = new MemberList(memberList.getLineNum());
+        for (int i = 0; i < first; i++) {
+            newList.addElement(memberList.get(i));
+        }
+        for (Member member : members) {
+            newList.addElement(member);
+        }
+        for (int i = first + span.count; i < memberList.getSize(); i++) {
+            newList.addElement(memberList.get(i));
+        }
+        newList.freeze();
+        memberList = newList;
+        replaceClass(c, new Class_(aClass.getLineNum(), aClass.getFilename(),
+                aClass.getName(), aClass.getParent(), newList));
+        span.end = end;
+        span.count = members.size();
+        span.errors = errorHandler.getErrorList();
+        classSpan.end += delta;
+        for (int i = m + 1; i < classSpan.members.size(); i++) {
+            classSpan.members.get(i).shift(delta, lineDelta);
+        }
+        for (int i = first + members.size(); i < memberList.getSize(); i++) {
+            shiftLines(memberList.get(i), lineDelta);
+        }
+        shiftClasses(c + 1, delta, lineDelta);
+        collectErrors();
+        return true;
+    }
+
+    /**
+     * parses the c-th class again after an edit within it
+     *
+     * @return whether it still is one class without errors
+     */
+    private boolean reparseClass(char[] edited, int c, int delta) throws IOException {
+        ClassSpan classSpan = spans.get(c);
+        int end = classSpan.end + delta;
+        ErrorHandler errorHandler = new ErrorHandler();
+        TokenBuffer tokens = lex(edited, classSpan.start, end, classSpan.line,
+                errorHandler);
+        if (tokens == null) {
+            return false;
+        }
+        // a class with errors is left to a parse of the whole file, since
+        // the parser may recover from them by skipping other classes
+        Class_ aClass = new Parser(errorHandler, nameTable).parseClass(
+                tokens.lexer(), filename);
+        List<ClassSpan> newSpans = aClass == null ? null : spansOf(tokens);
+        if (newSpans == null || !matches(newSpans.get(0), aClass)) {
+            return false;
+        }
+
+        int lineDelta = lineBreaks(edited, classSpan.start, end) -
+                lineBreaks(text, classSpan.start, classSpan.end);
+        replaceClass(c, aClass);
+        spans.set(c, newSpans.get(0));
+        shiftClasses(c + 1, delta, lineDelta);
+        collectErrors();
+        return true;
+    }
+
+    /**
+     * replaces the c-th class by a new Program with a new list of classes
+     */
+    private void replaceClass(int c, Class_ aClass) {
+        ClassList classes = program.getClassList();
+        ClassList newList = new ClassList(classes.getLineNum());
+        for (int i = 0; i < classes.getSize(); i++) {
+            newList.addElement(i == c ? aClass : classes.get(i));
+        }
+        newList.freeze();
+        program = new Program(program.getLineNum(), newList);
+    }
+
+    /**
+     * parses the whole source
+     */
+    private void parseFile(char[] source) throws IOException {
+        text = source;
+        ErrorHandler errorHandler = new ErrorHandler();
+        TokenBuffer tokens = TokenBuffer.lex(source, filename, errorHandler, nameTable);
+        program = new Parser(errorHandler, nameTable).parse(tokens);
+        errors = errorHandler.getErrorList();
+        spans = spansOf(tokens);
+        if (spans != null && errorHandler.errorsFound() && !attributeErrors()) {
+            spans = null;
+        }
+        if (spans != null) {
+            ClassList classes = program.getClassList();
+            boolean matching = spans.size() == classes.getSize();
+            for (int i = 0; matching && i < spans.size(); i++) {
+                matching = matches(spans.get(i), (Class_) classes.get(i));
+            }
+            if (!matching) {
+                spans = null;
+            }
+        }
+    }
+
+    /**
+     * finds out which of the errors of the parse of the whole file each
+     * member has, by parsing the members one by one as after an edit
+     *
+     * @return whether the members account for all the errors, so that
+     * they can be parsed one by one from now on
+     */
+    private boolean attributeErrors() throws IOException {
+        if (errors.size() >= ErrorHandler.MAX_ERRORS) {
+            return false;
+        }
+        for (ClassSpan classSpan : spans) {
+            for (Span member : classSpan.members) {
+                ErrorHandler errorHandler = new ErrorHandler();
+                TokenBuffer tokens = lex(text, member.start, member.end,
+                        member.line, errorHandler);
+                List<Member> members = tokens == null || !balanced(tokens) ? null :
+                        new Parser(errorHandler, nameTable).parseMembers(
+                                tokens.lexer(), filename);
+                if (members == null) {
+                    return false;
+                }
+                member.count = members.size();
+                member.errors = errorHandler.getErrorList();
+            }
+        }
+        List<Error> fileErrors = errors;
+        collectErrors();
+        boolean same = errors.toString().equals(fileErrors.toString());
+        errors = fileErrors;
+        return same;
+    }
+
+    /**
+     * lexes source[start..end)
+     *
+     * @return the tokens, or null if there were lexical errors, the
+     * tokens do not begin at start and end at end, or the last of them
+     * may go on past end (as a line comment goes on to the end of its line)
+     */
+    private TokenBuffer lex(char[] source, int start, int end, int line,
+                            ErrorHandler errorHandler) {
+        TokenBuffer tokens = TokenBuffer.lex(source, start, end, line, filename,
+                errorHandler, nameTable);
+        int last = tokens.size() - 2; // the one before EOF
+        if (errorHandler.errorsFound() || last < 0 || tokens.start(0) != start ||
+                tokens.start(last) + tokens.length(last) != end) {
+            return null;
+        }
+        if (end < source.length && source[end] != '\n' && source[end] != '\r') {
+            boolean lineComment = tokens.kind(last) == Token.Kind.COMMENT &&
+                    source[tokens.start(last) + 1] == '/';
+            if (lineComment || source[end] != ' ' && source[end] != '\t') {
+                return null;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return whether each "{" of the tokens is closed by a "}" after it,
+     * and none of them is a "class" keyword, so that the parser does not
+     * see the end of the tokens before it sees the end of what it parses
+     */
+    private static boolean balanced(TokenBuffer tokens) {
+        int depth = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token.Kind kind = tokens.kind(i);
+            if (kind == Token.Kind.LCURLY) {
+                depth++;
+            }
+            else if (kind == Token.Kind.RCURLY && --depth < 0 ||
+                    kind == Token.Kind.CLASS) {
+                return false;
+            }
+        }
+        return depth == 0;
+    }
+
+    /**
+     * finds the classes and members in the tokens of an error-free source
+     * by matching braces: a member ends with a ";" or with the "}" of its
+     * body, and a class with the "}" of its body
+     *
+     * @return the spans of the classes, or null if the braces don't match
+     */
+    private static List<ClassSpan> spansOf(TokenBuffer tokens) {
+        List<ClassSpan> classes = new ArrayList<>();
+        ClassSpan aClass = null;
+        Span member = null;
+        int depth = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token.Kind kind = tokens.kind(i);
+            if (kind == Token.Kind.COMMENT || kind == Token.Kind.EOF) {
+                continue;
+            }
+            int start = tokens.start(i);
+            int end = start + tokens.length(i);
+            if (depth == 0) {
+                if (kind == Token.Kind.CLASS) {
+                    aClass = new ClassSpan(start, tokens.line(i));
+                }
+                else if (kind == Token.Kind.LCURLY && aClass != null) {
+                    depth = 1;
+                }
+                else if (aClass == null || kind == Token.Kind.RCURLY) {
+                    return null;
+                }
+            }
+            else if (depth == 1) {
+                if (kind == Token.Kind.RCURLY && member == null) {
+                    aClass.end = end;
+                    classes.add(aClass);
+                    aClass = null;
+                    depth = 0;
+                    continue;
+                }
+                if (member == null) {
+                    member = new Span(start, end, tokens.line(i));
+                }
+                if (kind == Token.Kind.SEMICOLON) {
+                    member.end = end;
+                    aClass.members.add(member);
+                    member = null;
+                }
+                else if (kind == Token.Kind.LCURLY) {
+                    depth = 2;
+                }
+                else if (kind == Token.Kind.RCURLY) {
+                    return null;
+                }
+            }
+            else if (kind == Token.Kind.LCURLY) {
+                depth++;
+            }
+            else if (kind == Token.Kind.RCURLY) {
+                depth--;
+                if (depth == 1) {
+                    member.end = end;
+                    aClass.members.add(member);
+                    member = null;
+                }
+            }
+        }
+        return depth == 0 && aClass == null ? classes : null;
+    }
+
+    /**
+     * @return whether the member spans account for all the members of the class
+     */
+    private static boolean matches(ClassSpan span, Class_ aClass) {
+        int count = 0;
+        for (Span member : span.members) {
+            count += member.count;
+        }
+        return count == aClass.getMemberList().getSize();
+    }
+
+    /**
+     * puts together the errors of all the members, in the order a parse
+     * of the whole file would have registered them
+     */
+    private void collectErrors() {
+        ErrorHandler errorHandler = new ErrorHandler();
+        for (ClassSpan classSpan : spans) {
+            for (Span member : classSpan.members) {
+                for (Error error : member.errors) {
+                    errorHandler.register(error.getKind(), error.getFilename(),
+                            error.getLineNum(), error.getMessage());
+                }
+            }
+        }
+        errors = errorHandler.getErrorList();
+    }
+
+    /**
+     * moves the classes from the c-th one on by delta characters and
+     * lineDelta lines
+     */
+    private void shiftClasses(int c, int delta, int lineDelta) {
+        for (int i = c; i < spans.size(); i++) {
+            ClassSpan classSpan = spans.get(i);
+            classSpan.shift(delta, lineDelta);
+            for (Span member : classSpan.members) {
+                member.shift(delta, lineDelta);
+            }
+            shiftLines(program.getClassList().get(i), lineDelta);
+        }
+    }
+
+    /**
+     * adds lineDelta to the line numbers of the node and all the nodes below it
+     */
+    private static void shiftLines(ASTNode node, int lineDelta) {
+        if (lineDelta == 0) {
+            return;
+        }
+        new StackVisitor() {
+            @Override
+            protected boolean enter(ASTNode node) {
+                node.setLineNum(node.getLineNum() + lineDelta);
+                return true;
+            }
+        }.traverse(node);
+    }
+
+    /**
+     * @return the number of line breaks in source[start..end), counted
+     * as the lexer counts them: "\r\n" is one line break
+     */
+    private static int lineBreaks(char[] source, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (source[i] == '\r' ||
+                    (source[i] == '\n' && (i == 0 || source[i - 1] != '\r'))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return a description of every node of the tree, with its line number
+     * and the values of its String, int and boolean fields, in the order
+     * of a traversal, to compare trees
+     */
+    private static String describe(ASTNode root) {
+        StringBuilder description = new StringBuilder();
+        new StackVisitor() {
+            @Override
+            protected boolean enter(ASTNode node) {
+                description.append(node.getClass().getSimpleName()).append(' ')
+                        .append(node.getLineNum());
+                for (Class<?> c = node.getClass(); c != ASTNode.class;
+                     c = c.getSuperclass()) {
+                    for (Field field : c.getDeclaredFields()) {
+                        Class<?> type = field.getType();
+                        if (!Modifier.isStatic(field.getModifiers()) &&
+                                (type == String.class || type.isPrimitive())) {
+                            field.setAccessible(true);
+                            try {
+                                description.append(' ').append(field.get(node));
+                            } catch (IllegalAccessException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    }
+                }
+                description.append('\n');
+                return true;
+            }
+        }.traverse(root);
+        return description.toString();
+    }
+
+    /**
+     * Makes random edits to the file given as argument, checks after each
+     * one that the AST and the errors are those a full parse gives, and
+     * reports how long the edits and a full parse took on average. Edits
+     * that leave errors are undone, as a programmer soon fixes them.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: IncrementalParser file.btm [edits]");
+            return;
+        }
+        String filename = args[0];
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        IncrementalParser parser = new IncrementalParser(filename,
+                Files.readString(Path.of(filename)));
+        System.out.println(filename + ": " + parser.text.length + " chars, " +
+                (lineBreaks(parser.text, 0, parser.text.length) + 1) + " lines");
+        Random random = new Random(361);
+        String[] insertions = {" ", "\n", "x", "1 + ", "{ }", "\r\n", "/*", ";", ""};
+        int[] scopes = new int[Scope.values().length];
+        long[] scopeNanos = new long[scopes.length];
+        long fullNanos = 0;
+        int mismatches = 0;
+        for (int i = 0; i < edits; i++) {
+            int offset = random.nextInt(parser.text.length + 1);
+            int removed = random.nextInt(Math.min(3, parser.text.length - offset) + 1);
+            String inserted = insertions[random.nextInt(insertions.length)];
+            String undo = new String(parser.text, offset, removed);
+            for (int pass = 0; pass < 2; pass++) {
+                long start = System.nanoTime();
+                Scope scope = parser.edit(offset, removed, inserted);
+                scopeNanos[scope.ordinal()] += System.nanoTime() - start;
+                scopes[scope.ordinal()]++;
+
+                start = System.nanoTime();
+                IncrementalParser full = new IncrementalParser(filename,
+                        parser.getText());
+                fullNanos += System.nanoTime() - start;
+                if (!describe(parser.getProgram()).equals(describe(full.getProgram())) ||
+                        !parser.getErrors().toString().equals(
+                                full.getErrors().toString())) {
+                    mismatches++;
+                }
+                if (parser.getErrors().isEmpty()) {
+                    break;
+                }
+                removed = inserted.length();
+                inserted = undo;
+            }
+        }
+        int total = 0;
+        for (Scope scope : Scope.values()) {
+            int n = scopes[scope.ordinal()];
+            total += n;
+            System.out.printf("%6d edits reparsing the %-6s %8.3f ms on average%n",
+                    n, scope.name().toLowerCase() + ":",
+                    n == 0 ? 0 : scopeNanos[scope.ordinal()] / 1e6 / n);
+        }
+        System.out.printf("%6d full parses for comparison: %8.3f ms on average%n",
+                total, fullNanos / 1e6 / total);
+        System.out.println(mismatches == 0 ? "all ASTs identical to a full parse" :
+                mismatches + " ASTs differ from a full parse");
+        if (mismatches != 0) {
+            System.exit(1);
+        }
+    }
+}
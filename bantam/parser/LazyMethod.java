@@ -0,0 +1,72 @@
+/*
+ * File: LazyMethod.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.parser;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.FormalList;
+import proj8BogatyrevDimitrovWang.bantam.ast.Method;
+import proj8BogatyrevDimitrovWang.bantam.ast.StmtList;
+import proj8BogatyrevDimitrovWang.bantam.lexer.TokenBuffer;
+
+/**
+ * A Method whose body has not been parsed yet: the Parser skipped it
+ * (see Parser.setLazyBodies) and only kept where its tokens are. The body
+ * is parsed the first time getStmtList() is called, so a tool that never
+ * looks at the statements (or a Visitor that does not visit them) never
+ * pays for them. Until then the method keeps its TokenBuffer alive.
+ * getStmtList() can be called from several threads at once: the body is
+ * parsed only once, and the others wait for it.
+ */
+public class LazyMethod extends Method
+{
+    private TokenBuffer tokens; // null once the body is parsed
+    private final int open;     // the index of the body's "{"
+    private Parser.Bodies bodies; // parses the body
+
+    /**
+     * creates a method whose body is still to be parsed
+     *
+     * @param lineNum source line number corresponding to this AST node
+     * @param returnType the return type of the method
+     * @param name the name of the method
+     * @param formalList the parameters of the method
+     * @param tokens the tokens of the file the method is in
+     * @param open the index of the "{" starting the body
+     * @param bodies parses the body when it is needed
+     */
+    LazyMethod(int lineNum, String returnType, String name, FormalList formalList,
+               TokenBuffer tokens, int open, Parser.Bodies bodies) {
+        super(lineNum, returnType, name, formalList, null);
+        this.tokens = tokens;
+        this.open = open;
+        this.bodies = bodies;
+    }
+
+    /**
+     * @return whether the body has been parsed
+     */
+    public synchronized boolean isBodyParsed() {
+        return tokens == null;
+    }
+
+    /**
+     * Get the list of statements, parsing the body if it has not been
+     * parsed yet. Its errors are registered in the ErrorHandler of the
+     * Parser that skipped it, unless that Parser was reset since.
+     *
+     * @return list of statements
+     */
+    @Override
+    public synchronized StmtList getStmtList() {
+        if (tokens != null) {
+            stmtList = bodies.parse(tokens, open);
+            tokens = null;
+            bodies = null;
+        }
+        return stmtList;
+    }
+}
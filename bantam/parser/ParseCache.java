@@ -0,0 +1,356 @@
+/*
+ * File: ParseCache.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.parser;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.AstFile;
+import proj8BogatyrevDimitrovWang.bantam.ast.FlatAst;
+import proj8BogatyrevDimitrovWang.bantam.ast.Program;
+import proj8BogatyrevDimitrovWang.bantam.lexer.TokenBuffer;
+import proj8BogatyrevDimitrovWang.bantam.util.Error;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An on-disk cache of parse results, so that files that have not changed
+ * since they were last parsed are neither scanned nor parsed again.
+ *
+ * Each file's AST and errors are saved in a file of the cache directory
+ * named after a SHA-256 hash of the Parser.VERSION, the AstFile.FORMAT,
+ * the name of the file, the default charset and the file's contents. (The
+ * name is hashed too because it is part of the AST and of the errors, and
+ * the charset because the contents are decoded with it, as a FileReader
+ * does, so other charsets can give other tokens and errors.) So a changed
+ * file, another charset or a new version of the parser simply misses. The AST is saved by AstFile, and
+ * after it the errors: their number and then, for each, its kind, file
+ * name, line and message. An entry is loaded by mapping its file into
+ * memory, and neither saving nor loading recurses, so deep ASTs are
+ * cached too.
+ *
+ * The directory is kept under a size cap by deleting the least recently
+ * used entries; the time an entry was last used is its file's
+ * modification time, so the order carries over from one run to the next.
+ * A ParseCache can be shared by threads parsing different files.
+ */
+public class ParseCache
+{
+    /** the size cap used if none is given: 64 MB */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private static final String SUFFIX = ".ast";
+
+    /** what is saved for a file */
+    private static class Entry
+    {
+        private final Program program;
+        private final Error[] errors;
+
+        Entry(Program program, Error[] errors) {
+            this.program = program;
+            this.errors = errors;
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    // the size of each entry by its key, least recently used first
+    private final LinkedHashMap<String, Long> entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger evictions = new AtomicInteger();
+
+    /**
+     * opens the cache in the given directory, creating it if needed
+     *
+     * @param directory where the entries are kept
+     * @param maxBytes the most bytes the entries may take up together
+     */
+    public ParseCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                     Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // oldest first, so that the least recently used entry comes first
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) {
+            times.put(file, Files.getLastModifiedTime(file));
+        }
+        files.sort(Comparator.comparing(times::get));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            entries.put(name.substring(0, name.length() - SUFFIX.length()), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    /**
+     * returns the AST of the file, from the cache if the file has not
+     * changed, or else by scanning and parsing it and saving the result.
+     * Either way, its errors are registered in the given ErrorHandler.
+     *
+     * @param filename the name of the Bantam file
+     * @param errorHandler collects the errors found in the file
+     * @return the root node of the AST of the file, as Parser.parse builds it
+     * @throws IOException if the file can't be read
+     */
+    public Program parse(String filename, ErrorHandler errorHandler)
+            throws IOException {
+        return parse(filename, errorHandler, new NameTable());
+    }
+
+    /**
+     * returns the AST of the file as parse(String, ErrorHandler) does, with
+     * its identifier names taken from the given table whether it comes
+     * from the cache or is parsed
+     *
+     * @param filename the name of the Bantam file
+     * @param errorHandler collects the errors found in the file
+     * @param nameTable the table of identifier names of the compilation;
+     *                  a ConcurrentNameTable if it is used by other threads
+     * @return the root node of the AST of the file, as Parser.parse builds it
+     * @throws IOException if the file can't be read
+     */
+    public Program parse(String filename, ErrorHandler errorHandler,
+                         NameTable nameTable) throws IOException {
+        byte[] bytes = Files.readAllBytes(Path.of(filename));
+        Charset charset = Charset.defaultCharset();
+        String key = keyOf(filename, charset, bytes);
+
+        Entry entry = load(key, nameTable);
+        if (entry != null) {
+            hits.incrementAndGet();
+            replay(entry.errors, errorHandler);
+            return entry.program;
+        }
+        misses.incrementAndGet();
+
+        // the bytes already read are parsed, so that what is saved matches
+        // the key even if the file changes meanwhile. A FileReader, which
+        // Parser.parse(filename) uses, decodes with the default charset.
+        CharBuffer chars = charset.decode(ByteBuffer.wrap(bytes));
+        char[] source = new char[chars.remaining()];
+        chars.get(source);
+        ErrorHandler fileErrors = new ErrorHandler();
+        Program program = new Parser(fileErrors, nameTable).parse(
+                TokenBuffer.lex(source, filename, fileErrors, nameTable));
+        Error[] errors = fileErrors.getErrorList().toArray(new Error[0]);
+        store(key, FlatAst.of(program, filename), errors);
+        replay(errors, errorHandler);
+        return program;
+    }
+
+    /**
+     * @return a hex string of the SHA-256 hash of the parser version, the
+     * file name, the charset the contents are decoded with and the contents
+     */
+    private static String keyOf(String filename, Charset charset, byte[] bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update((Parser.VERSION + "\n" + AstFile.FORMAT + "\n" + filename + "\n" +
+                charset.name() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest(bytes)) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return the entry with the given key, or null if there is none or it
+     * can't be read (it is then deleted)
+     */
+    private Entry load(String key, NameTable nameTable) {
+        synchronized (entries) {
+            if (entries.get(key) == null) { // also marks it as just used
+                return null;
+            }
+        }
+        Path file = directory.resolve(key + SUFFIX);
+        try {
+            AstFile.Input in = new AstFile.Input(AstFile.map(file));
+            FlatAst ast = AstFile.decode(in, nameTable);
+            Error[] errors = new Error[in.readCount()];
+            Error.Kind[] kinds = Error.Kind.values();
+            for (int i = 0; i < errors.length; i++) {
+                int kind = in.readByte();
+                if (kind >= kinds.length) {
+                    throw new IOException("The entry has an unknown kind of error.");
+                }
+                errors[i] = new Error(kinds[kind], in.readString(),
+                        in.readSignedVarint(), in.readString());
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(ast.toProgram(), errors);
+        } catch (IOException | RuntimeException e) {
+            // deleted by another process, or not an entry of these AST
+            // classes (toProgram fails on nodes with the wrong children)
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * saves the AST and errors under the given key and evicts entries if
+     * the cache is then too big. An entry that can't be saved is left out.
+     */
+    private void store(String key, FlatAst ast, Error[] errors) {
+        AstFile.Output out = new AstFile.Output();
+        AstFile.encode(ast, out);
+        out.writeVarint(errors.length);
+        for (Error error : errors) {
+            out.writeByte(error.getKind().ordinal());
+            out.writeString(error.getFilename());
+            out.writeSignedVarint(error.getLineNum());
+            out.writeString(error.getMessage());
+        }
+        Path temp = null;
+        try {
+            // written to a file of its own first, so that no other thread
+            // or process ever reads half an entry
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temp)) {
+                out.writeTo(stream);
+            }
+            long size = Files.size(temp);
+            Files.move(temp, directory.resolve(key + SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            synchronized (entries) {
+                Long old = entries.put(key, size);
+                totalBytes += size - (old != null ? old : 0);
+            }
+            evict();
+        } catch (IOException e) {
+            // the directory is not writable
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /** deletes the least recently used entries until the cache fits its cap */
+    private void evict() {
+        List<String> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Long>> oldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && oldest.hasNext()) {
+                Map.Entry<String, Long> entry = oldest.next();
+                totalBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                oldest.remove();
+            }
+        }
+        for (String key : evicted) {
+            evictions.incrementAndGet();
+            delete(key);
+        }
+    }
+
+    /** forgets the entry with the given key and deletes its file */
+    private void remove(String key) {
+        synchronized (entries) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        delete(key);
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key + SUFFIX));
+        } catch (IOException ignored) {
+            // it is no longer in the index, so it will not be read
+        }
+    }
+
+    /**
+     * registers the saved errors so that the ErrorHandler ends up as if it
+     * had collected them itself: errors without a file name are put in
+     * front of the list when registered, so they are registered in reverse
+     */
+    private static void replay(Error[] errors, ErrorHandler errorHandler) {
+        for (int i = errors.length - 1; i >= 0; i--) {
+            if (errors[i].getFilename() == null) {
+                errorHandler.register(errors[i].getKind(), errors[i].getMessage());
+            }
+        }
+        for (Error error : errors) {
+            if (error.getFilename() != null) {
+                errorHandler.register(error.getKind(), error.getFilename(),
+                        error.getLineNum(), error.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the number of files found in the cache
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of files that had to be parsed
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return a one-line summary of how the cache was used
+     */
+    public String report() {
+        synchronized (entries) {
+            return String.format("parse cache: %d hits, %d misses, %d evicted, " +
+                            "%d entries (%.1f of %.1f MB)", hits.get(), misses.get(),
+                    evictions.get(), entries.size(), totalBytes / 1e6, maxBytes / 1e6);
+        }
+    }
+}
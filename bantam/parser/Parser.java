@@ -12,30 +12,101 @@
 package proj8BogatyrevDimitrovWang.bantam.parser;
 
 
+import proj8BogatyrevDimitrovWang.bantam.lexer.Lexer;
 import proj8BogatyrevDimitrovWang.bantam.lexer.Scanner;
 import proj8BogatyrevDimitrovWang.bantam.lexer.Token;
+import proj8BogatyrevDimitrovWang.bantam.lexer.Token.Operator;
+import proj8BogatyrevDimitrovWang.bantam.lexer.TokenBuffer;
 import proj8BogatyrevDimitrovWang.bantam.util.CompilationException;
 import proj8BogatyrevDimitrovWang.bantam.util.Error;
 import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
 import proj8BogatyrevDimitrovWang.bantam.ast.*;
+import proj8BogatyrevDimitrovWang.bantam.treedrawer.Drawer;
 
+import java.awt.GraphicsEnvironment;
 import java.io.IOException;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static proj8BogatyrevDimitrovWang.bantam.lexer.Token.Kind.*;
 
 
 public class Parser
 {
+    /**
+     * the version of the ASTs the parser builds, to be increased whenever
+     * they change for the same input or the AST classes change, so that
+     * ASTs saved by an older version (see ParseCache) are not used any more
+     */
+    public static final int VERSION = 3;
+
     // instance variables
-    private Scanner scanner; // provides the tokens
+    private Lexer scanner; // provides the tokens
     private String fileName; // stores the filename
     private Token currentToken; // the lookahead token
     private ErrorHandler errorHandler; // collects & organizes the error messages
+    private Token lastErrorToken; // the token at which the last error was found
+    private final NameTable nameTable; // identifier names of all files parsed
+    private boolean iterative; // whether method bodies and field initial
+                               // values are parsed with an explicit stack
+    private boolean lazyBodies; // whether method bodies are parsed on demand
+    private Bodies bodies; // parses them for the current parse
+    private Scanner reusableScanner; // scans characters in memory
+    private char[] buffer = new char[0]; // holds them if they are copied
+    private CharsetDecoder decoder; // decodes them if they are bytes
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>(); // that stack
 
     // constructor
     public Parser(ErrorHandler errorHandler) {
+        this(errorHandler, new NameTable());
+    }
+
+    /**
+     * creates a parser whose identifier names are interned in the given
+     * table, so that parsers working on the same program can share it
+     * @param errorHandler collects the error messages
+     * @param nameTable the table of identifier names of the compilation,
+     *                  or null for a table of the parser's own
+     */
+    public Parser(ErrorHandler errorHandler, NameTable nameTable) {
         this.errorHandler = errorHandler;
+        this.nameTable = nameTable != null ? nameTable : new NameTable();
+    }
+
+
+    /**
+     * sets whether method bodies and the initial values of fields are
+     * parsed iteratively, with an explicit stack on the heap instead of by
+     * recursive calls. Then deeply nested statements and expressions
+     * can't overflow the thread's stack. The AST and the errors found
+     * are the same either way.
+     * @param iterative whether to parse iteratively
+     */
+    public void setIterative(boolean iterative) {
+        this.iterative = iterative;
+    }
+
+
+    /**
+     * sets whether method bodies are skipped while parsing from a
+     * TokenBuffer and only parsed when a tool first asks a Method for its
+     * statements (see LazyMethod). This saves most of the work for tools
+     * that only need the classes and the signatures of their members.
+     * Errors in a body are then registered in the ErrorHandler when the
+     * body is parsed, unless the parser was reset in the meantime.
+     * Bodies whose braces do not match are parsed at once.
+     * @param lazyBodies whether to parse method bodies on demand
+     */
+    public void setLazyBodies(boolean lazyBodies) {
+        this.lazyBodies = lazyBodies;
     }
 
 
@@ -43,37 +114,411 @@ public class Parser
      * error handler and throws compilation exception
      * @author Baron Wang
      * @param message error message to show
-     * @throws CompilationException to be caught in main
+     * @throws CompilationException to be caught where the parser recovers;
+     * it has no stack trace, since it never leaves the parser
      */
     private void handleErr(String message) throws CompilationException{
-        errorHandler.register(Error.Kind.PARSE_ERROR, message);
-        throw new CompilationException(errorHandler);
+        reportErr(message);
+        throw new CompilationException(errorHandler, false);
+    }
+
+    /**
+     * registers a Parse error at the current token on the error handler,
+     * unless an error was already found at this token: errors that only
+     * follow from the one before them would not help anyone
+     * @param message error message to show
+     */
+    private void reportErr(String message) {
+        if (currentToken != lastErrorToken) {
+            errorHandler.register(Error.Kind.PARSE_ERROR, fileName,
+                    currentToken.position, message);
+            lastErrorToken = currentToken;
+        }
+    }
+
+    /**
+     * makes sure the exception was thrown by handleErr, so that the parser
+     * can recover from it, and rethrows it otherwise.
+     * Once the error handler is full there is no point in going on, so
+     * the rest of the tokens are skipped.
+     * @param e the exception that stopped the parsing of a construct
+     */
+    private void checkRecoverable(CompilationException e) throws IOException {
+        if (e.getErrorHandler() != errorHandler) {
+            throw e;
+        }
+        if (errorHandler.isFull()) {
+            while (currentToken.kind != EOF) {
+                advance();
+            }
+        }
     }
 
 
     /**
-     * parse the given file and return the root node of the AST
+     * parse the given file and return the root node of the AST.
+     * Errors are registered in the ErrorHandler given to the constructor.
+     * The parser recovers from each syntax error by skipping to the end of
+     * the statement, member or class it was found in, so all the errors
+     * of the file are found in one go.
      * @param filename The name of the Bantam Java file to be parsed
-     * @return The Program node forming the root of the AST generated by the parser
+     * @return The Program node forming the root of the AST generated by the parser.
+     * If there were syntax errors, the statements, members and classes
+     * they were found in are left out of it.
      */
     public Program parse(String filename) throws IOException {
-        errorHandler = new ErrorHandler();
-        scanner = new Scanner(filename, errorHandler);
-        fileName = filename;
+        begin(new Scanner(filename, errorHandler, false, nameTable), filename);
         return parseProgram();
     }
 
+    /**
+     * parse the given file as parse(String) does and return its AST in
+     * the compact form of a FlatAst. The nodes of each class are only
+     * kept until the class is flattened, so the FlatAst is all that
+     * stays on the heap. Method bodies are always parsed.
+     * @param filename The name of the Bantam Java file to be parsed
+     * @return the AST of the file
+     */
+    public FlatAst parseFlat(String filename) throws IOException {
+        begin(new Scanner(filename, errorHandler, false, nameTable), filename);
+        FlatAst.Builder builder = new FlatAst.Builder(filename,
+                currentToken.position);
+        parseClasses(builder::addClass);
+        return builder.build();
+    }
+
+    /**
+     * parse the given characters and return the root node of the AST, as
+     * parse(String) does for a file. The array is not changed or kept.
+     * @param source the characters of a Bantam Java program
+     * @param filename the name to use for the program in the AST and in
+     *                 the error messages, or null
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(char[] source, String filename) throws IOException {
+        return parse(source, source.length, filename);
+    }
+
+    /**
+     * parse the given characters and return the root node of the AST, as
+     * parse(String) does for a file. They are copied into a buffer that
+     * the parser keeps for the next parse.
+     * @param source the characters of a Bantam Java program
+     * @param filename the name to use for the program in the AST and in
+     *                 the error messages, or null
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(CharSequence source, String filename) throws IOException {
+        int length = source.length();
+        char[] chars = buffer(length);
+        if (source instanceof String) {
+            ((String) source).getChars(0, length, chars, 0);
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = source.charAt(i);
+            }
+        }
+        return parse(chars, length, filename);
+    }
+
+    /**
+     * parse the given UTF-8 bytes and return the root node of the AST, as
+     * parse(String) does for a file. They are decoded into a buffer that
+     * the parser keeps for the next parse; malformed bytes become U+FFFD.
+     * @param source the bytes from its position to its limit, which are
+     *               left where they are
+     * @param filename the name to use for the program in the AST and in
+     *                 the error messages, or null
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(ByteBuffer source, String filename) throws IOException {
+        if (decoder == null) {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        // UTF-8 never decodes to more chars than it has bytes
+        CharBuffer chars = CharBuffer.wrap(buffer(source.remaining()));
+        decoder.reset();
+        decoder.decode(source.duplicate(), chars, true);
+        decoder.flush(chars);
+        return parse(chars.array(), chars.position(), filename);
+    }
+
+    /**
+     * parse source[0..length) with the parser's Scanner, which is reset
+     * to each new source instead of being made anew
+     */
+    private Program parse(char[] source, int length, String filename)
+            throws IOException {
+        if (reusableScanner == null) {
+            reusableScanner = new Scanner(source, length, filename, errorHandler,
+                    nameTable);
+        }
+        else {
+            reusableScanner.reset(source, length, filename);
+        }
+        begin(reusableScanner, filename);
+        return parseProgram();
+    }
+
+    /**
+     * @return the parser's character buffer, grown to hold at least the
+     * given number of characters
+     */
+    private char[] buffer(int length) {
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+    /**
+     * makes the parser ready to be used again as if it were new: it
+     * forgets the source it parsed last and the errors registered in its
+     * ErrorHandler are cleared. Its Scanner, and the buffer that in-memory
+     * sources are copied or decoded into, are kept for the next parse.
+     * The bodies of LazyMethods from before are no longer reported to the
+     * ErrorHandler when they are parsed, since it now holds the errors of
+     * other parses.
+     */
+    public void reset() {
+        if (bodies != null) {
+            bodies.detach();
+            bodies = null;
+        }
+        scanner = null;
+        fileName = null;
+        currentToken = null;
+        lastErrorToken = null;
+        frames.clear();
+        errorHandler.clear();
+    }
+
+    /**
+     * parse the tokens of a file that has already been lexed into a
+     * TokenBuffer and return the root node of the AST.
+     * Errors are registered in the ErrorHandler given to the constructor,
+     * which should be the one the buffer's lexical errors went to.
+     * The parser recovers from syntax errors as parse(String) does.
+     * @param tokens the tokens of a Bantam Java file
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(TokenBuffer tokens) throws IOException {
+        return parse(tokens.lexer(), tokens.getFilename());
+    }
+
+    /**
+     * parse the tokens the lexer provides and return the root node of the AST
+     * @param lexer provides the tokens of a Bantam Java file
+     * @param filename the name of the file, for the error messages
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    Program parse(Lexer lexer, String filename) throws IOException {
+        begin(lexer, filename);
+        return parseProgram();
+    }
+
+    /**
+     * parse the tokens the lexer provides as members of a class body,
+     * recovering from errors as parseClass does, as when a member is
+     * parsed again after it was edited
+     * @param lexer provides the tokens of the members
+     * @param filename the name of the file, for the error messages
+     * @return the members, or null if the tokens did not end with the end
+     * of a member, so that a parse of the whole class would have gone on
+     * differently
+     */
+    List<Member> parseMembers(Lexer lexer, String filename) throws IOException {
+        begin(lexer, filename);
+        List<Member> members = new ArrayList<>();
+        while (currentToken.kind != EOF) {
+            if (currentToken.kind == RCURLY || currentToken.kind == CLASS) {
+                return null;
+            }
+            Token start = currentToken;
+            try {
+                members.add(parseMember());
+            } catch (CompilationException e) {
+                checkRecoverable(e);
+                if (!skipMember()) {
+                    return null;
+                }
+                skipIfStuck(start);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * parse the tokens the lexer provides as a method body, for a LazyMethod
+     * @param lexer provides the tokens from the "{" of the body on
+     * @param filename the name of the file, for the error messages
+     * @return the statements of the body
+     */
+    StmtList parseBody(Lexer lexer, String filename) throws IOException {
+        begin(lexer, filename);
+        BlockStmt blockStmt = (BlockStmt) (iterative ?
+                runFrames(new BlockFrame()) : parseBlock());
+        return blockStmt.getStmtList();
+    }
+
+    /**
+     * Parses the bodies of the LazyMethods of one parse. It has a Parser
+     * and an ErrorHandler of its own, so that the bodies can be parsed
+     * while the Parser that skipped them goes on with other files, and
+     * copies the errors of each body into the ErrorHandler of that parse
+     * until it is detached (see reset()). Bodies are parsed one at a time,
+     * so LazyMethods can be used from any thread.
+     */
+    static final class Bodies
+    {
+        private final Parser parser;
+        private final ErrorHandler bodyErrors = new ErrorHandler();
+        private ErrorHandler errorHandler; // null once detached
+
+        /**
+         * @param errorHandler where the errors of the bodies go
+         * @param nameTable the table of identifier names of the parse
+         * @param iterative whether the bodies are parsed iteratively
+         */
+        private Bodies(ErrorHandler errorHandler, NameTable nameTable,
+                       boolean iterative) {
+            this.errorHandler = errorHandler;
+            parser = new Parser(bodyErrors, nameTable);
+            parser.iterative = iterative;
+        }
+
+        /**
+         * parses a method body and registers its errors
+         * @param tokens the tokens of the file the method is in
+         * @param open the index of the "{" starting the body
+         * @return the statements of the body; none if it has more errors
+         * than an ErrorHandler keeps
+         */
+        synchronized StmtList parse(TokenBuffer tokens, int open) {
+            StmtList stmtList;
+            try {
+                stmtList = parser.parseBody(tokens.lexer(open), tokens.getFilename());
+            } catch (CompilationException e) {
+                stmtList = (StmtList) new StmtList(tokens.line(open)).freeze();
+            } catch (IOException e) {
+                // a TokenBuffer is never the cause of an IOException
+                throw new CompilationException("Unexpected read error.", e);
+            }
+            if (errorHandler != null) {
+                for (Error error : bodyErrors.getErrorList()) {
+                    errorHandler.register(error.getKind(), error.getFilename(),
+                            error.getLineNum(), error.getMessage());
+                }
+            }
+            parser.reset();
+            return stmtList;
+        }
+
+        /**
+         * stops registering the errors of the bodies parsed from now on
+         */
+        synchronized void detach() {
+            errorHandler = null;
+        }
+    }
+
+    /**
+     * parse the tokens the lexer provides as one class, as when a class
+     * is parsed again after it was edited
+     * @param lexer provides the tokens of the class
+     * @param filename the name of the file, for the error messages
+     * @return the class, or null if it has a syntax error or there are
+     * tokens after it
+     */
+    Class_ parseClass(Lexer lexer, String filename) throws IOException {
+        begin(lexer, filename);
+        try {
+            Class_ aClass = parseClass();
+            return currentToken.kind == EOF && !errorHandler.errorsFound() ?
+                    aClass : null;
+        } catch (CompilationException e) {
+            checkRecoverable(e);
+            return null;
+        }
+    }
+
+    /**
+     * starts parsing the tokens the lexer provides
+     * @param lexer provides the tokens
+     * @param filename the name of the file, for the error messages
+     */
+    private void begin(Lexer lexer, String filename) throws IOException {
+        bodies = null; // the LazyMethods of the last parse keep theirs
+        scanner = lexer;
+        fileName = filename;
+        lastErrorToken = null;
+        advance();
+    }
+
+    /**
+     * moves on to the next token, skipping comments
+     */
+    private void advance() throws IOException {
+        do {
+            currentToken = scanner.scan();
+        } while (currentToken.kind == COMMENT);
+    }
+
+    /**
+     * tells "this" and "super" apart from other names by reference: the
+     * lexers the parser reads take identifier names from a NameTable,
+     * which always hands out NameTable.THIS and NameTable.SUPER for them
+     * @param name the name of an identifier token
+     * @return whether it is "this" or "super"
+     */
+    private static boolean isThisOrSuper(String name) {
+        return name == NameTable.THIS || name == NameTable.SUPER;
+    }
+
     // <Program> ::= <Class> | <Class> <Program>
     private Program parseProgram() throws IOException {
         int position = currentToken.position;
         ClassList clist = new ClassList(position);
+        parseClasses(clist::addElement);
+        clist.freeze();
+        return new Program(position, clist);
+    }
 
+    /**
+     * parses the classes up to the end of the file, handing each one on
+     * as soon as it is parsed
+     * @param classes takes the classes
+     */
+    private void parseClasses(Consumer<Class_> classes) throws IOException {
         while (currentToken.kind != EOF) {
-            Class_ aClass = parseClass();
-            clist.addElement(aClass);
+            Token start = currentToken;
+            try {
+                Class_ aClass = parseClass();
+                classes.accept(aClass);
+            } catch (CompilationException e) {
+                checkRecoverable(e);
+                // skip to the next class
+                while (currentToken.kind != CLASS && currentToken.kind != EOF) {
+                    advance();
+                }
+                skipIfStuck(start);
+            }
         }
+    }
 
-        return new Program(position, clist);
+    /**
+     * makes sure that recovering from an error moves the parser on, by
+     * skipping the token the failed construct started at if it is still
+     * the current one
+     * @param start the token the construct started at
+     */
+    private void skipIfStuck(Token start) throws IOException {
+        if (currentToken == start && currentToken.kind != EOF) {
+            advance();
+        }
     }
 
 
@@ -85,25 +530,76 @@ public class Parser
         if(currentToken.kind != Token.Kind.CLASS){
             handleErr("Exception: expecting a \"class\" keyword");
         }
-        currentToken = scanner.scan();
+        advance();
         String identifier = parseIdentifier();
         String parentIdentifier = null;
-        if (currentToken.spelling.equals("extends")){
-            currentToken = scanner.scan();
+        if (currentToken.kind == EXTENDS){
+            advance();
             parentIdentifier = parseIdentifier();
         }
-        currentToken = scanner.scan();
+        if (currentToken.kind != LCURLY){
+            handleErr("Exception: expecting a \"{\"");
+        }
+        advance();
         MemberList memberList = new MemberList(position);
         // while currentToken is not hitting "}", parse next member
-        while (!currentToken.spelling.equals("}")){
-            Member currentMember = parseMember();
-            memberList.addElement(currentMember);
+        while (currentToken.kind != RCURLY){
+            if (currentToken.kind == EOF || currentToken.kind == CLASS){
+                // keep what there is of the class
+                reportErr("Illegal class declaration: " +
+                        "unclosed class body, \"}\" expected");
+                memberList.freeze();
+                return new Class_(position, fileName, identifier,
+                        parentIdentifier, memberList);
+            }
+            Token start = currentToken;
+            try {
+                Member currentMember = parseMember();
+                memberList.addElement(currentMember);
+            } catch (CompilationException e) {
+                checkRecoverable(e);
+                skipMember();
+                skipIfStuck(start);
+            }
         }
+        advance();
+        memberList.freeze();
         return new Class_(position, fileName, identifier, parentIdentifier, memberList);
 
     }
 
 
+    /**
+     * skips to the end of the member an error was found in: past its ";"
+     * or past the "}" of its body, or to the "}" ending the class
+     * @return whether it skipped past the end of the member
+     */
+    private boolean skipMember() throws IOException {
+        int depth = 0; // how many "{" the skipped tokens opened
+        while (currentToken.kind != EOF && currentToken.kind != CLASS) {
+            if (currentToken.kind == LCURLY) {
+                depth++;
+            }
+            else if (currentToken.kind == RCURLY) {
+                if (depth == 0) {
+                    return false;
+                }
+                depth--;
+                if (depth == 0) {
+                    advance();
+                    return true;
+                }
+            }
+            else if (currentToken.kind == SEMICOLON && depth == 0) {
+                advance();
+                return true;
+            }
+            advance();
+        }
+        return false;
+    }
+
+
     //Fields and Methods
     // <Member> ::= <Field> | <Method>
     // <Method> ::= <Type> <Identifier> ( <Parameters> ) <BlockStmt>
@@ -116,30 +612,53 @@ public class Parser
         String funcOrVarName = parseIdentifier();
 
         // case 1: field
-        if (currentToken.spelling.equals("=")){
-            currentToken = scanner.scan();
-            Expr expr = parseExpression();
+        if (currentToken.kind == ASSIGN){
+            advance();
+            Expr expr = iterative ? (Expr) runFrames(new ExpressionFrame()) :
+                    parseExpression();
+            if (currentToken.kind != SEMICOLON){
+                handleErr("Illegal field declaration: missing semicolon");
+            }
+            advance();
             return new Field(position,typeName,funcOrVarName,expr);
         }
             // field without initialization
-        if (currentToken.spelling.equals(";")){
-            currentToken = scanner.scan();
+        if (currentToken.kind == SEMICOLON){
+            advance();
             // init is an "optional" field so i'm passing null
             return new Field(position,typeName,funcOrVarName,null);
         }
 
         // case 2: method
-        if (currentToken.spelling.equals("(")){
-            currentToken = scanner.scan();
+        if (currentToken.kind == LPAREN){
+            advance();
             FormalList formalList = parseParameters();
             // now it should get a ')'. If not, error out
-            if(!currentToken.spelling.equals(")")){
+            if(currentToken.kind != RPAREN){
                 handleErr("Illegal method declaration. \")\" expected");
             }
-            currentToken = scanner.scan();
+            advance();
+            if (currentToken.kind != LCURLY){
+                handleErr("Illegal method declaration. \"{\" expected");
+            }
+            if (lazyBodies && scanner instanceof TokenBuffer.Cursor) {
+                TokenBuffer.Cursor cursor = (TokenBuffer.Cursor) scanner;
+                int open = cursor.nextIndex() - 1; // currentToken's index
+                int close = cursor.buffer().matchingBrace(open);
+                if (close >= 0) {
+                    cursor.seek(close + 1);
+                    advance();
+                    if (bodies == null || bodies.parser.iterative != iterative) {
+                        bodies = new Bodies(errorHandler, nameTable, iterative);
+                    }
+                    return new LazyMethod(position, typeName, funcOrVarName,
+                            formalList, cursor.buffer(), open, bodies);
+                }
+            }
             // parseBlock should only return BlockStmt
             // TODO potential bug here with BlockStmt
-            BlockStmt blockStmt = (BlockStmt) parseBlock();
+            BlockStmt blockStmt = (BlockStmt) (iterative ?
+                    runFrames(new BlockFrame()) : parseBlock());
             // return this method
             return new Method(position,typeName,
                     funcOrVarName,formalList, blockStmt.getStmtList());
@@ -197,20 +716,20 @@ public class Parser
         Expr predExpr;
         Stmt stmt;
         // moving on from token WHILE
-        currentToken = scanner.scan();
+        advance();
         // check for "("
-        if (!currentToken.spelling.equals("(")){
+        if (currentToken.kind != LPAREN){
             handleErr("Illegal while statement: " +
                     "missing conditions, \"(\" expected");
         }
-        currentToken = scanner.scan();
+        advance();
         predExpr = parseExpression();
         // check for ")"
-        if (!currentToken.spelling.equals(")")){
+        if (currentToken.kind != RPAREN){
             handleErr("Illegal while statement: " +
                     "unclosed parenthesis, \")\" expected");
         }
-        currentToken = scanner.scan();
+        advance();
         stmt = parseStatement();
         return new WhileStmt(position,predExpr,stmt);
     }
@@ -219,8 +738,9 @@ public class Parser
     // <ReturnStmt> ::= RETURN <Expression> ; | RETURN ;
     private Stmt parseReturn() throws IOException {
         /* inspired from the code shown in class on Tuesday */
+        int position = currentToken.position;
          Expr expr = null;
-        Token currentToken = scanner.scan();
+        advance();
 
          if (currentToken.kind != SEMICOLON){
              expr = parseExpression();
@@ -229,27 +749,37 @@ public class Parser
                          "\";\" expected");
                }
         }
-        currentToken = scanner.scan();
+        advance();
 
-        return new ReturnStmt(currentToken.position, expr);
+        return new ReturnStmt(position, expr);
     }
 
 
     // <BreakStmt> ::= BREAK ;
-    private Stmt parseBreak() {
+    private Stmt parseBreak() throws IOException {
+        int position = currentToken.position;
+        // moving on from token BREAK
+        advance();
         // current token should be pointing to ";"
         if (currentToken.kind != SEMICOLON){
             handleErr("Illegal break statement: " +
                     "\";\" expected");
         }
-        return new BreakStmt(currentToken.position);
+        advance();
+        return new BreakStmt(position);
     }
 
 
     // <ExpressionStmt> ::= <Expression> ;
     private ExprStmt parseExpressionStmt() throws IOException {
-        return new ExprStmt(
-                currentToken.position, parseExpression()) ;
+        int position = currentToken.position;
+        Expr expr = parseExpression();
+        if (currentToken.kind != SEMICOLON){
+            handleErr("Illegal expression statement: " +
+                    "missing semicolon");
+        }
+        advance();
+        return new ExprStmt(position, expr);
     }
 
 
@@ -260,19 +790,19 @@ public class Parser
         String name = "";
         Expr expr;
         // get next token which should be an identifier
-        currentToken = scanner.scan();
+        advance();
         if (currentToken.kind != IDENTIFIER){
             handleErr("Illegal var declaration statement: " +
                     "var must be initialized");
         }
         name = currentToken.getSpelling();
-        currentToken = scanner.scan();
+        advance();
 
         if (currentToken.kind != ASSIGN){
             handleErr("Illegal var declaration statement: " +
                     "expecting an identifier");
         }
-        currentToken = scanner.scan();
+        advance();
 
         expr = parseExpression();
         if (currentToken.kind != SEMICOLON){
@@ -281,7 +811,7 @@ public class Parser
         }
 
         // always move the token forward by one
-        currentToken = scanner.scan();
+        advance();
 
         return new DeclStmt(position, name, expr);
     }
@@ -299,39 +829,43 @@ public class Parser
         Stmt bodyStmt;
 
         // moving on from token FOR
-        currentToken = scanner.scan();
+        advance();
         // check for "("
-        if (!currentToken.spelling.equals("(")){
+        if (currentToken.kind != LPAREN){
             handleErr("Illegal for statement: " +
                     "missing parenthesis, \"(\" expected");
         }
 
-        currentToken = scanner.scan();
+        advance();
         // if start isn't empty, parse it
-        if (!currentToken.spelling.equals(";")){
+        if (currentToken.kind != SEMICOLON){
             startExpr = parseExpression();
         }
-        // at this point currentToken is ";"
-        currentToken = scanner.scan();
+        // at this point currentToken should be ";"
+        if (currentToken.kind != SEMICOLON){
+            handleErr("Illegal for statement: \";\" expected");
+        }
+        advance();
         // if end condition isn't empty, parse it
-        if (!currentToken.spelling.equals(";")){
+        if (currentToken.kind != SEMICOLON){
             endExpr = parseExpression();
         }
-        // at this point currentToken is ";"
-        currentToken = scanner.scan();
-        // if start isn't empty, parse it
-        if (!currentToken.spelling.equals(";")){
+        // at this point currentToken should be ";"
+        if (currentToken.kind != SEMICOLON){
+            handleErr("Illegal for statement: \";\" expected");
+        }
+        advance();
+        // if update isn't empty, parse it
+        if (currentToken.kind != RPAREN){
             updateExpr = parseExpression();
         }
-        // at this point currentToken is ";"
-        currentToken = scanner.scan();
 
         // check for ")"
-        if (!currentToken.spelling.equals(")")){
+        if (currentToken.kind != RPAREN){
             handleErr("Illegal for statement: " +
                     "unclosed parenthesis, \")\" expected");
         }
-        currentToken = scanner.scan();
+        advance();
         bodyStmt = parseStatement();
         return new ForStmt(position,startExpr,endExpr,updateExpr,bodyStmt);
     }
@@ -342,17 +876,52 @@ public class Parser
     private Stmt parseBlock() throws IOException {
         int position = currentToken.position;
         // moving on from token {
-        currentToken = scanner.scan();
+        advance();
         StmtList stmtList = new StmtList(position);
         // adds statements into the statement list
         // until currentToken reaches "}"
-        while(!currentToken.spelling.equals("}")){
-            Stmt stmt = parseStatement();
-            stmtList.addElement(stmt);
+        while(currentToken.kind != RCURLY){
+            if (currentToken.kind == EOF || currentToken.kind == CLASS){
+                // keep what there is of the block
+                reportErr("Illegal block: " +
+                        "unclosed block, \"}\" expected");
+                stmtList.freeze();
+                return new BlockStmt(position,stmtList);
+            }
+            Token start = currentToken;
+            try {
+                Stmt stmt = parseStatement();
+                stmtList.addElement(stmt);
+            } catch (CompilationException e) {
+                checkRecoverable(e);
+                skipStatement();
+                skipIfStuck(start);
+            }
         }
+        advance();
+        stmtList.freeze();
         return new BlockStmt(position,stmtList);
     }
 
+    /**
+     * skips to the end of the statement an error was found in: past its
+     * ";", or to the next token that ends the block or starts a statement
+     */
+    private void skipStatement() throws IOException {
+        while (true) {
+            switch (currentToken.kind) {
+                case SEMICOLON:
+                    advance();
+                    return;
+                case RCURLY: case LCURLY: case IF: case WHILE: case FOR:
+                case VAR: case RETURN: case BREAK: case CLASS: case EOF:
+                    return;
+                default:
+                    advance();
+            }
+        }
+    }
+
 
     // <IfStmt> ::= IF ( <Expr> ) <Stmt> | IF ( <Expr> ) <Stmt> ELSE <Stmt>
     private Stmt parseIf() throws IOException {
@@ -361,25 +930,25 @@ public class Parser
         Stmt bodyStmt;
         Stmt elseStmt = null;
         // moving on from token IF
-        currentToken = scanner.scan();
+        advance();
         // check for "("
-        if (!currentToken.spelling.equals("(")){
+        if (currentToken.kind != LPAREN){
             handleErr("Illegal if statement: " +
                     "missing conditions, \"(\" expected");
         }
-        currentToken = scanner.scan();
+        advance();
         predExpr = parseExpression();
         // check for ")"
-        if (!currentToken.spelling.equals(")")){
+        if (currentToken.kind != RPAREN){
             handleErr("Illegal if statement: " +
                     "unclosed parenthesis, \")\" expected");
         }
-        currentToken = scanner.scan();
+        advance();
         bodyStmt = parseStatement();
 
         // checking for ELSE
-        if (currentToken.spelling.equals("else")){
-            currentToken = scanner.scan();
+        if (currentToken.kind == ELSE){
+            advance();
             elseStmt = parseStatement();
         }
         
@@ -397,182 +966,143 @@ public class Parser
     // most assignments should be processed here
     private Expr parseExpression() throws IOException {
         int position = currentToken.position;
-        Expr expr = parseOrExpr();
+        Expr expr = parseBinaryExpr(OR_LEVEL);
         /*  Check whether the currentToken has type ASSIGN and
         check whether expr is an instance of VarExpr. */
         if (currentToken.kind == ASSIGN && expr instanceof VarExpr){
-            currentToken = scanner.scan();
+            advance();
 
             Expr rightExpr = parseExpression();
+            // refName could be null, this, or super
+            // we get it from the ref field of VarExpr
+            VarExpr ref = (VarExpr) ((VarExpr) expr).getRef();
             return new AssignExpr(position,
-                    // refName could be null, this, or super
-                    // we get it from the ref field of VarExpr
-                    ((VarExpr) ((VarExpr) expr).getRef()).getName(),
+                    ref == null ? null : ref.getName(),
                     ((VarExpr) expr).getName(),rightExpr);
         }
         return expr;
     }
 
 
+    // The binary operators are parsed by precedence climbing rather than
+    // by one method per level of the grammar below. All of them are left
+    // associative, and INSTANCEOF <Type> is treated as a relational
+    // operator whose right operand is a type.
     // <LogicalOR> ::= <logicalAND> <LogicalORRest>
     // <LogicalORRest> ::= EMPTY |  || <LogicalAND> <LogicalORRest>
-    // errors should be relayed to parseAndExpr
-    private Expr parseOrExpr() throws IOException {
-        int position = currentToken.position;
-        Expr left;
-
-        left = parseAndExpr();
-        while (currentToken.spelling.equals("||")) {
-            currentToken = scanner.scan();
-
-            Expr right = parseAndExpr();
-            left = new BinaryLogicOrExpr(position, left, right);
-        }
-
-        return left;
-    }
-
-
     // <LogicalAND> ::= <ComparisonExpr> <LogicalANDRest>
     // <LogicalANDRest> ::= EMPTY |  && <ComparisonExpr> <LogicalANDRest>
-    // errors should be relayed to parseEqualityExpr
-    private Expr parseAndExpr() throws IOException {
-        int position = currentToken.position;
-        // parseEqualityExpr() contains ComparisonExpr
-        Expr left = parseEqualityExpr();
-        // currentToken at LogicalAndRest
-        while (currentToken.spelling.equals("&&")){
-            currentToken = scanner.scan();
-
-            Expr right = parseEqualityExpr();
-            left = new BinaryLogicAndExpr(position,left,right);
-        }
-        return left;
-    }
-
-
     // <ComparisonExpr> ::= <RelationalExpr> <equalOrNotEqual> <RelationalExpr> |
     //                      <RelationalExpr>
     // <equalOrNotEqual> ::=  == | !=
-    private Expr parseEqualityExpr() throws IOException {
-        int position = currentToken.position;
-        Expr leftRelExpr = parseRelationalExpr();
-        // if current token is <equalOrNotEqual>
-        if (currentToken.spelling.equals("==")){
-            Expr rightRelExpr = parseRelationalExpr();
-            leftRelExpr = new BinaryCompEqExpr(position,
-                    leftRelExpr, rightRelExpr);
-        }
-        else if (currentToken.spelling.equals("!=")){
-            Expr rightRelExpr = parseRelationalExpr();
-            leftRelExpr = new BinaryCompNeExpr(position,
-                    leftRelExpr, rightRelExpr);
-        }
-        return leftRelExpr;
-    }
-
-
-    // <RelationalExpr> ::= <AddExpr> | <AddExpr> <ComparisonOp> <AddExpr>
+    // <RelationalExpr> ::= <AddExpr> <MoreRelational>
+    // <MoreRelational> ::= EMPTY | <ComparisonOp> <AddExpr> <MoreRelational> |
+    //                      INSTANCEOF <Type> <MoreRelational>
     // <ComparisonOp> ::= < | > | <= | >=
-    private Expr parseRelationalExpr() throws IOException {
-        int position = currentToken.position;
-        Expr leftExpr = parseAddExpr();
-        Expr rightExpr;
-        // check if current token is comparison op
-        switch (currentToken.spelling){
-            case "<":
-                currentToken = scanner.scan();
-                rightExpr = parseAddExpr();
-                return new BinaryCompLtExpr(position,
-                        leftExpr,rightExpr);
-            case ">":
-                currentToken = scanner.scan();
-                rightExpr = parseAddExpr();
-                return new BinaryCompGtExpr(position,
-                        leftExpr,rightExpr);
-            case "<=":
-                currentToken = scanner.scan();
-                rightExpr = parseAddExpr();
-                return new BinaryCompLeqExpr(position,
-                        leftExpr,rightExpr);
-            case ">=":
-                currentToken = scanner.scan();
-                rightExpr = parseAddExpr();
-                return new BinaryCompGeqExpr(position,
-                        leftExpr,rightExpr);
-            default:
-                // default is when current token isn't
-                // comparison op, so it terminates
-                // the function
-                return leftExpr;
-        }
-    }
-
-
     // <AddExpr>::＝ <MultExpr> <MoreMultExpr>
     // <MoreMultExpr> ::= EMPTY | + <MultExpr> <MoreMultExpr> | - <MultExpr> <MoreMultExpr>
-    private Expr parseAddExpr() throws IOException {
-        int position = currentToken.position;
-        Expr expr = parseMultExpr();
-        // checks if token is + or -
-        while(currentToken.spelling.equals("+")
-           || currentToken.spelling.equals("-")){
-            currentToken = scanner.scan();
-            // make the right hand side another expr
-            Expr anotherExpr = parseMultExpr();
-            // combine right hand side expr with (left hand side) expr
-            expr = (currentToken.spelling.equals("+") ?
-                new BinaryArithPlusExpr(position, expr, anotherExpr) :
-                new BinaryArithMinusExpr(position, expr, anotherExpr));
-            // repeat until not + or - anymore
-        }
-        return expr;
-    }
-
-
     // <MultiExpr> ::= <NewCastOrUnary> <MoreNCU>
     // <MoreNCU> ::= * <NewCastOrUnary> <MoreNCU> |
     //               / <NewCastOrUnary> <MoreNCU> |
     //               % <NewCastOrUnary> <MoreNCU> |
     //               EMPTY
-    private Expr parseMultExpr() throws IOException {
+
+    // the precedence levels of the binary operators, from loosest to tightest
+    private static final int NOT_BINARY = 0;
+    private static final int OR_LEVEL = 1;
+    private static final int AND_LEVEL = 2;
+    private static final int EQUALITY_LEVEL = 3;
+    private static final int RELATIONAL_LEVEL = 4;
+    private static final int ADD_LEVEL = 5;
+    private static final int MULT_LEVEL = 6;
+
+    // the precedence of each operator, indexed by its ordinal;
+    // NOT_BINARY for the ones that aren't binary operators
+    private static final int[] PRECEDENCE = new int[Operator.values().length];
+    static {
+        PRECEDENCE[Operator.OR.ordinal()] = OR_LEVEL;
+        PRECEDENCE[Operator.AND.ordinal()] = AND_LEVEL;
+        for (Operator operator : new Operator[] {Operator.EQ, Operator.NE}) {
+            PRECEDENCE[operator.ordinal()] = EQUALITY_LEVEL;
+        }
+        for (Operator operator : new Operator[] {Operator.LT, Operator.GT,
+                Operator.LEQ, Operator.GEQ}) {
+            PRECEDENCE[operator.ordinal()] = RELATIONAL_LEVEL;
+        }
+        PRECEDENCE[Operator.PLUS.ordinal()] = ADD_LEVEL;
+        PRECEDENCE[Operator.MINUS.ordinal()] = ADD_LEVEL;
+        PRECEDENCE[Operator.TIMES.ordinal()] = MULT_LEVEL;
+        PRECEDENCE[Operator.DIVIDE.ordinal()] = MULT_LEVEL;
+        PRECEDENCE[Operator.MODULUS.ordinal()] = MULT_LEVEL;
+    }
+
+    /**
+     * @param token a token
+     * @return the precedence level of the token as a binary operator,
+     * or NOT_BINARY if it isn't one
+     */
+    private static int precedenceOf(Token token) {
+        if (token.operator != null) {
+            return PRECEDENCE[token.operator.ordinal()];
+        }
+        return token.kind == INSTANCEOF ? RELATIONAL_LEVEL : NOT_BINARY;
+    }
+
+    /**
+     * parses an expression made of operands joined by binary operators of
+     * the given precedence or tighter
+     * @param minPrecedence the loosest precedence level to take in
+     * @return the expression. Each binary node has the line of the first
+     * token of its left operand, as it would in the layered grammar.
+     */
+    private Expr parseBinaryExpr(int minPrecedence) throws IOException {
         int position = currentToken.position;
-        Expr expr = parseNewCastOrUnary();
-        // checks if token is *, / or %
-        Expr rightExpr;
-        while(currentToken.spelling.equals("*")
-        || currentToken.spelling.equals("/")
-        || currentToken.spelling.equals("%")){
-            switch (currentToken.spelling) {
-                case "*" -> {
-                    currentToken = scanner.scan();
-                    // make the right hand side another expr
-                    rightExpr = parseNewCastOrUnary();
-                    // combine right hand side expr with
-                    // (left hand side) expr
-                    expr = new BinaryArithTimesExpr(position,
-                            expr, rightExpr);
-                }
-                case "/" -> {
-                    currentToken = scanner.scan();
-                    rightExpr = parseNewCastOrUnary();
-                    expr = new BinaryArithDivideExpr(position,
-                            expr, rightExpr);
-                }
-                case "%" -> {
-                    currentToken = scanner.scan();
-                    rightExpr = parseNewCastOrUnary();
-                    expr = new BinaryArithModulusExpr(position,
-                            expr, rightExpr);
-                }
-                // don't need a default case because
-                // the switch statement has the same condition
-                // as the while loop. It will just break out of
-                // the while loop once it is finished
+        Expr left = parseNewCastOrUnary();
+        // no operator tighter than the last one can follow it: after a
+        // binary operator the right operand takes them all in, and after
+        // INSTANCEOF <Type> the grammar has no place for them
+        int maxPrecedence = MULT_LEVEL;
+        int precedence = precedenceOf(currentToken);
+        while (precedence >= minPrecedence && precedence <= maxPrecedence) {
+            Operator operator = currentToken.operator;
+            advance();
+            if (operator == null) { // INSTANCEOF
+                left = new InstanceofExpr(position, left, parseType());
+            }
+            else {
+                Expr right = parseBinaryExpr(precedence + 1);
+                left = makeBinaryExpr(position, operator, left, right);
             }
+            maxPrecedence = precedence;
+            precedence = precedenceOf(currentToken);
         }
-        return expr;
+        return left;
+    }
 
+    /**
+     * @param position the line number of the expression
+     * @param operator a binary operator
+     * @param left the left operand
+     * @param right the right operand
+     * @return the node for the operator applied to the operands
+     */
+    private static Expr makeBinaryExpr(int position, Operator operator,
+                                       Expr left, Expr right) {
+        switch (operator) {
+            case OR:      return new BinaryLogicOrExpr(position, left, right);
+            case AND:     return new BinaryLogicAndExpr(position, left, right);
+            case EQ:      return new BinaryCompEqExpr(position, left, right);
+            case NE:      return new BinaryCompNeExpr(position, left, right);
+            case LT:      return new BinaryCompLtExpr(position, left, right);
+            case GT:      return new BinaryCompGtExpr(position, left, right);
+            case LEQ:     return new BinaryCompLeqExpr(position, left, right);
+            case GEQ:     return new BinaryCompGeqExpr(position, left, right);
+            case PLUS:    return new BinaryArithPlusExpr(position, left, right);
+            case MINUS:   return new BinaryArithMinusExpr(position, left, right);
+            case TIMES:   return new BinaryArithTimesExpr(position, left, right);
+            case DIVIDE:  return new BinaryArithDivideExpr(position, left, right);
+            default:      return new BinaryArithModulusExpr(position, left, right);
+        }
     }
 
     // <NewCastOrUnary> ::= <NewExpression> | <CastExpression> | <UnaryPrefix>
@@ -604,16 +1134,17 @@ public class Parser
             // other functions may return real val
             return null;
         }
-        currentToken = scanner.scan();
+        advance();
         String typeStr = parseIdentifier();
         // check for paren
         if (currentToken.kind != LPAREN){
             handleErr("Exception: expecting a \"(\"");
         }
-        currentToken = scanner.scan();
+        advance();
         if (currentToken.kind != RPAREN){
             handleErr("Exception: expecting a \")\"");
         }
+        advance();
         // if it reached this point, return expression
         return new NewExpr(position, typeStr);
     }
@@ -628,68 +1159,62 @@ public class Parser
             // other functions may return real val
             return null;
         }
-        currentToken = scanner.scan();
+        advance();
         if (currentToken.kind != LPAREN){
             handleErr("Exception: expecting a \"(\"");
         }
-        currentToken = scanner.scan();
+        advance();
         String typeStr = parseType();
+        if (currentToken.kind != COMMA){
+            handleErr("Exception: expecting a \",\"");
+        }
+        advance();
         Expr exprStr = parseExpression();
         if (currentToken.kind != RPAREN){
             handleErr("Exception: expecting a \")\"");
         }
+        advance();
 
         return new CastExpr(position,typeStr,exprStr);
 
     }
 
 
-    // <UnaryPrefix> ::= <PrefixOp> <UnaryPreFix> | <UnaryPostfix>
+    // <UnaryPrefix> ::= <PrefixOp> <NewCastOrUnary> | <UnaryPostfix>
     // <PrefixOp> ::= - | ! | ++ | --
     private Expr parseUnaryPrefix() throws IOException {
         // ! this function never returns null
         int position = currentToken.position;
 
         // decide if the token corresponds to PrefixOp or UnaryPostfix
-        if(!currentToken.spelling.equals("-") &&  !currentToken.spelling.equals("!")
-         &&!currentToken.spelling.equals("++") && !currentToken.spelling.equals("--")){
+        Operator operator = currentToken.operator;
+        if (operator != Operator.MINUS && operator != Operator.NOT
+                && operator != Operator.INCR && operator != Operator.DECR){
             // should be UnaryPostFix if not prefix.
             // Error handling should be relayed to parseUnaryPostfix()
 
             return parseUnaryPostfix();
-        };
+        }
 
-        // if it is a prefixOp then it switches cases
+        // if it is a prefixOp then it
         // advances to next token and recurse
-
-        switch (currentToken.spelling) {
-            case "-" -> {
-                currentToken = scanner.scan();
-                return new UnaryNegExpr(position,
-                        parseUnaryPrefix());
-            }
-            case "!" -> {
-                currentToken = scanner.scan();
-                return new UnaryNotExpr(position,
-                        parseUnaryPrefix());
-            }
-            case "++" -> {
-                currentToken = scanner.scan();
-                return new UnaryIncrExpr(position,
-                        parseUnaryPrefix(), false);
-            }
-            case "--" -> {
-                currentToken = scanner.scan();
-                return new UnaryDecrExpr(position,
-                        parseUnaryPrefix(), false);
-            }
-            // no need for default because all possibilities
-            // have been covered
-        }
-        // this line should never be reached
-        // TODO delete debugging line
-        System.out.println("ERROR this line should never be reached");
-        return null;
+        advance();
+        Expr expr = parseNewCastOrUnary();
+        switch (operator) {
+            case MINUS -> {
+                return new UnaryNegExpr(position, expr);
+            }
+            case NOT -> {
+                return new UnaryNotExpr(position, expr);
+            }
+            case INCR -> {
+                return new UnaryIncrExpr(position, expr, false);
+            }
+            // the only possibility left is --
+            default -> {
+                return new UnaryDecrExpr(position, expr, false);
+            }
+        }
     }
 
 
@@ -700,14 +1225,14 @@ public class Parser
         Expr primaryExpr = parsePrimary();
 
         // check for post++
-        if (currentToken.spelling.equals("++")){
-            currentToken = scanner.scan();
+        if (currentToken.kind == UNARYINCR){
+            advance();
             return new UnaryIncrExpr(position,primaryExpr,true);
 
         }
         // check for post--
-        else if (currentToken.spelling.equals("--")){
-            currentToken = scanner.scan();
+        else if (currentToken.kind == UNARYDECR){
+            advance();
             return new UnaryDecrExpr(position,primaryExpr,true);
         }
         // no postfix
@@ -725,18 +1250,17 @@ public class Parser
     private Expr parsePrimary() throws IOException {
         int position = currentToken.position;
         Expr expr;
-        // moving on from token (
-        currentToken = scanner.scan();
         // case 1: ( <Expression> )
         // check for "("
-        if (currentToken.spelling.equals("(")){
-            currentToken = scanner.scan();
+        if (currentToken.kind == LPAREN){
+            advance();
             expr = parseExpression();
             // check for ")"
-            if (!currentToken.spelling.equals(")")){
+            if (currentToken.kind != RPAREN){
                 handleErr("Illegal expression: " +
                         "unclosed parenthesis, \")\" expected");
             }
+            advance();
             return expr;
         }
         // case 2: <IntegerConst>
@@ -756,51 +1280,27 @@ public class Parser
             VarExpr prefixVarExpr;
             String name; // id
 
-            // switch statement checking for "super."/"this."
-            switch (currentToken.spelling) {
-                // "this."  appearing first
-                case "this" -> {
-                    prefixVarExpr = new VarExpr(position, null, "this");
-                    currentToken = scanner.scan();
-                    // next token should be DOT
-                    if (currentToken.kind != DOT) {
-                        handleErr("Illegal variable expression: " +
-                                "dot (\".\") must come after \"this\"");
-                    }
-                    currentToken = scanner.scan();
-                    // after DOT it should be identifier
-                }
-                // "this."  appearing first
-                case "super" -> {
-                    prefixVarExpr = new VarExpr(position, null, "super");
-                    currentToken = scanner.scan();
-                    // next token should be DOT
-                    if (currentToken.kind != DOT) {
-                        handleErr("Illegal variable expression: " +
-                                "dot (\".\") must come after \"super\"");
-                    }
-                    currentToken = scanner.scan();
-                    // after DOT it should be identifier
-                }
-                // no "super" or "this"
-                default -> {
-                    prefixVarExpr = null;
-                    currentToken = scanner.scan();
-                    // next it should be identifier
-                }
-            }
+            // "super." or "this." may come first; without the dot
+            // "this" and "super" are just names
+            prefixVarExpr = null;
             name = parseIdentifier();
+            if (currentToken.kind == DOT && isThisOrSuper(name)) {
+                prefixVarExpr = new VarExpr(position, null, name);
+                advance();
+                // after DOT it should be identifier
+                name = parseIdentifier();
+            }
 
             // search for (<Arguments>)
-            if (currentToken.spelling.equals("(")){
-                currentToken = scanner.scan();
+            if (currentToken.kind == LPAREN){
+                advance();
                 ExprList args = parseArguments();
                 // check for closing paren
-                if (!currentToken.spelling.equals(")")){
+                if (currentToken.kind != RPAREN){
                     handleErr("Illegal expression: " +
                             "unclosed parenthesis, \")\" expected");
                 }
-                currentToken = scanner.scan();
+                advance();
                 // it's a method call (dispatch) if it hit "("
                 return new DispatchExpr(position,prefixVarExpr,name,args);
             }
@@ -819,7 +1319,7 @@ public class Parser
         // since parsePrimary() is the only one that calls this
         // function, we know that as long as !currentToken.equals(")")
         // it is reading an Expression.
-        if (!currentToken.spelling.equals(")")) {
+        if (currentToken.kind != RPAREN) {
 
             Expr expr = parseExpression();
             exprList.addElement(expr);
@@ -830,7 +1330,7 @@ public class Parser
             // don't need to do anything if it's ")"
             // if it's a "," skip it and read next expression
             while(currentToken.kind == COMMA){
-                currentToken = scanner.scan();
+                advance();
                 Expr expr2 = parseExpression();
                 exprList.addElement(expr2);
             }
@@ -838,6 +1338,7 @@ public class Parser
         }
         // currentToken should be ")" at this point
         // potential error handled in caller function
+        exprList.freeze();
         return exprList;
     }
 
@@ -851,7 +1352,7 @@ public class Parser
         // when it is trying to parse a method. So the ending condition
         // should be ")"
 
-        if (!currentToken.spelling.equals(")")) {
+        if (currentToken.kind != RPAREN) {
 
             Formal formal = parseFormal();
             formalList.addElement(formal);
@@ -862,7 +1363,7 @@ public class Parser
             // don't need to do anything if it's ")"
             // if it's a "," skip it and read next formal
             while(currentToken.kind == COMMA){
-                currentToken = scanner.scan();
+                advance();
                 Formal formal2 = parseFormal();
                 formalList.addElement(formal2);
             }
@@ -870,13 +1371,14 @@ public class Parser
         }
         // currentToken should be ")" at this point
         // potential error handled in caller function
+        formalList.freeze();
         return formalList;
 
     }
 
 
     // <Formal> ::= <Type> <Identifier>
-    private Formal parseFormal() {
+    private Formal parseFormal() throws IOException {
         int position = currentToken.position;
         // return null if parseType fails
         String typeName = parseType();
@@ -886,31 +1388,636 @@ public class Parser
 
 
     // <Type> ::= <Identifier>
-    private String parseType() {
+    private String parseType() throws IOException {
         return parseIdentifier();
     }
 
 
+    //----------------------------------------
+    // Iterative mode
+    // Each rule that can nest (statements and expressions) has a Frame
+    // class that does what its parse method above does, step by step.
+    // Where the method would call the parse method of another rule, the
+    // frame pushes a frame for that rule and waits for it to return its
+    // node. The top frame of the stack is the one being parsed.
+
+    /** the state of a rule being parsed */
+    private abstract class Frame
+    {
+        int state;     // how far the rule has got
+        Object result; // what the rule it called last returned
+
+        /** parses the next part of the rule */
+        abstract void step() throws IOException;
+    }
+
+    /**
+     * parses the rule of the given frame and all the rules it calls
+     * @param root the frame of the rule to parse
+     * @return what the rule returns
+     */
+    private Object runFrames(Frame root) throws IOException {
+        Frame bottom = new Frame() {
+            @Override
+            void step() {
+                // it only receives the result of the root
+            }
+        };
+        frames.push(bottom);
+        frames.push(root);
+        try {
+            while (frames.peek() != bottom) {
+                try {
+                    frames.peek().step();
+                } catch (CompilationException e) {
+                    // like parseBlock, the innermost block recovers
+                    while (frames.peek() != bottom &&
+                            !(frames.peek() instanceof BlockFrame)) {
+                        frames.pop();
+                    }
+                    if (frames.peek() == bottom) {
+                        throw e;
+                    }
+                    checkRecoverable(e);
+                    ((BlockFrame) frames.peek()).recover();
+                }
+            }
+            return bottom.result;
+        } finally {
+            frames.clear();
+        }
+    }
+
+    /** starts the rule of the given frame */
+    private void call(Frame frame) {
+        frames.push(frame);
+    }
+
+    /** replaces the current rule with the one of the given frame */
+    private void tailCall(Frame frame) {
+        frames.pop();
+        frames.push(frame);
+    }
+
+    /** ends the current rule, which returns the given node */
+    private void ret(Object node) {
+        frames.pop();
+        frames.peek().result = node;
+    }
+
+    /**
+     * checks that the current token is of the given kind and moves past it
+     * @param kind the kind of token expected
+     * @param message the error message if it isn't there
+     */
+    private void expect(Token.Kind kind, String message) throws IOException {
+        if (currentToken.kind != kind){
+            handleErr(message);
+        }
+        advance();
+    }
+
+    /**
+     * @return a frame for the statement starting at the current token
+     */
+    private Frame statementFrame() {
+        switch (currentToken.kind) {
+            case IF:
+                return new IfFrame();
+            case LCURLY:
+                return new BlockFrame();
+            case VAR:
+                return new VarDeclarationFrame();
+            case RETURN:
+                return new ReturnFrame();
+            case FOR:
+                return new ForFrame();
+            case WHILE:
+                return new WhileFrame();
+            case BREAK:
+                return new BreakFrame();
+            default:
+                return new ExpressionStmtFrame();
+        }
+    }
+
+    // <BlockStmt> ::= { <Body> }
+    private class BlockFrame extends Frame
+    {
+        final int position = currentToken.position;
+        StmtList stmtList;
+        Token start; // the token the statement being parsed started at
+
+        @Override
+        void step() throws IOException {
+            switch (state) {
+                case 0: // moving on from token {
+                    advance();
+                    stmtList = new StmtList(position);
+                    state = 1;
+                    break;
+                case 1: // the next statement, if any
+                    if (currentToken.kind == RCURLY){
+                        advance();
+                        stmtList.freeze();
+                        ret(new BlockStmt(position, stmtList));
+                    }
+                    else if (currentToken.kind == EOF || currentToken.kind == CLASS){
+                        reportErr("Illegal block: " +
+                                "unclosed block, \"}\" expected");
+                        stmtList.freeze();
+                        ret(new BlockStmt(position, stmtList));
+                    }
+                    else {
+                        start = currentToken;
+                        call(statementFrame());
+                        state = 2;
+                    }
+                    break;
+                default: // the statement was parsed
+                    stmtList.addElement((Stmt) result);
+                    state = 1;
+            }
+        }
+
+        /** skips the statement an error was found in */
+        void recover() throws IOException {
+            skipStatement();
+            skipIfStuck(start);
+            state = 1;
+        }
+    }
+
+    // <IfStmt> ::= IF ( <Expr> ) <Stmt> | IF ( <Expr> ) <Stmt> ELSE <Stmt>
+    private class IfFrame extends Frame
+    {
+        final int position = currentToken.position;
+        Expr predExpr;
+        Stmt bodyStmt;
+
+        @Override
+        void step() throws IOException {
+            switch (state) {
+                case 0:
+                    advance();
+                    expect(LPAREN, "Illegal if statement: " +
+                            "missing conditions, \"(\" expected");
+                    call(new ExpressionFrame());
+                    state = 1;
+                    break;
+                case 1:
+                    predExpr = (Expr) result;
+                    expect(RPAREN, "Illegal if statement: " +
+                            "unclosed parenthesis, \")\" expected");
+                    call(statementFrame());
+                    state = 2;
+                    break;
+                case 2:
+                    bodyStmt = (Stmt) result;
+                    if (currentToken.kind == ELSE){
+                        advance();
+                        call(statementFrame());
+                        state = 3;
+                    }
+                    else {
+                        ret(new IfStmt(position, predExpr, bodyStmt, null));
+                    }
+                    break;
+                default:
+                    ret(new IfStmt(position, predExpr, bodyStmt, (Stmt) result));
+            }
+        }
+    }
+
+    // <WhileStmt> ::= WHILE ( <Expression> ) <Stmt>
+    private class WhileFrame extends Frame
+    {
+        final int position = currentToken.position;
+        Expr predExpr;
+
+        @Override
+        void step() throws IOException {
+            switch (state) {
+                case 0:
+                    advance();
+                    expect(LPAREN, "Illegal while statement: " +
+                            "missing conditions, \"(\" expected");
+                    call(new ExpressionFrame());
+                    state = 1;
+                    break;
+                case 1:
+                    predExpr = (Expr) result;
+                    expect(RPAREN, "Illegal while statement: " +
+                            "unclosed parenthesis, \")\" expected");
+                    call(statementFrame());
+                    state = 2;
+                    break;
+                default:
+                    ret(new WhileStmt(position, predExpr, (Stmt) result));
+            }
+        }
+    }
+
+    // <ForStmt> ::= FOR ( <Start> ; <Terminate> ; <Increment> ) <STMT>
+    private class ForFrame extends Frame
+    {
+        final int position = currentToken.position;
+        Expr startExpr;
+        Expr endExpr;
+        Expr updateExpr;
+
+        @Override
+        void step() throws IOException {
+            switch (state) {
+                case 0:
+                    advance();
+                    expect(LPAREN, "Illegal for statement: " +
+                            "missing parenthesis, \"(\" expected");
+                    optionalExpression(SEMICOLON);
+                    state = 1;
+                    break;
+                case 1:
+                    startExpr = (Expr) result;
+                    expect(SEMICOLON, "Illegal for statement: \";\" expected");
+                    optionalExpression(SEMICOLON);
+                    state = 2;
+                    break;
+                case 2:
+                    endExpr = (Expr) result;
+                    expect(SEMICOLON, "Illegal for statement: \";\" expected");
+                    optionalExpression(RPAREN);
+                    state = 3;
+                    break;
+                case 3:
+                    updateExpr = (Expr) result;
+                    expect(RPAREN, "Illegal for statement: " +
+                            "unclosed parenthesis, \")\" expected");
+                    call(statementFrame());
+                    state = 4;
+                    break;
+                default:
+                    ret(new ForStmt(position, startExpr, endExpr, updateExpr,
+                            (Stmt) result));
+            }
+        }
+
+        /** parses an expression unless the token that ends it comes first */
+        void optionalExpression(Token.Kind end) {
+            if (currentToken.kind != end){
+                call(new ExpressionFrame());
+            }
+            else {
+                result = null;
+            }
+        }
+    }
+
+    // <ReturnStmt> ::= RETURN <Expression> ; | RETURN ;
+    private class ReturnFrame extends Frame
+    {
+        final int position = currentToken.position;
+
+        @Override
+        void step() throws IOException {
+            if (state == 0) {
+                advance();
+                if (currentToken.kind != SEMICOLON){
+                    call(new ExpressionFrame());
+                    state = 1;
+                }
+                else {
+                    advance();
+                    ret(new ReturnStmt(position, null));
+                }
+            }
+            else {
+                expect(SEMICOLON, "Illegal return statement: \";\" expected");
+                ret(new ReturnStmt(position, (Expr) result));
+            }
+        }
+    }
+
+    // <BreakStmt> ::= BREAK ;
+    private class BreakFrame extends Frame
+    {
+        @Override
+        void step() throws IOException {
+            ret(parseBreak());
+        }
+    }
+
+    // <VarDeclaration> ::= VAR <Id> = <Expression> ;
+    private class VarDeclarationFrame extends Frame
+    {
+        final int position = currentToken.position;
+        String name;
+
+        @Override
+        void step() throws IOException {
+            if (state == 0) {
+                advance();
+                if (currentToken.kind != IDENTIFIER){
+                    handleErr("Illegal var declaration statement: " +
+                            "var must be initialized");
+                }
+                name = currentToken.getSpelling();
+                advance();
+                expect(ASSIGN, "Illegal var declaration statement: " +
+                        "expecting an identifier");
+                call(new ExpressionFrame());
+                state = 1;
+            }
+            else {
+                expect(SEMICOLON, "Illegal var declaration " +
+                        "statement: missing semicolon");
+                ret(new DeclStmt(position, name, (Expr) result));
+            }
+        }
+    }
+
+    // <ExpressionStmt> ::= <Expression> ;
+    private class ExpressionStmtFrame extends Frame
+    {
+        final int position = currentToken.position;
+
+        @Override
+        void step() throws IOException {
+            if (state == 0) {
+                call(new ExpressionFrame());
+                state = 1;
+            }
+            else {
+                expect(SEMICOLON, "Illegal expression statement: " +
+                        "missing semicolon");
+                ret(new ExprStmt(position, (Expr) result));
+            }
+        }
+    }
+
+    // <Expression> ::= <LogicalORExpr> <OptionalAssignment>
+    private class ExpressionFrame extends Frame
+    {
+        final int position = currentToken.position;
+        VarExpr target;
+
+        @Override
+        void step() throws IOException {
+            switch (state) {
+                case 0:
+                    call(new BinaryFrame(OR_LEVEL));
+                    state = 1;
+                    break;
+                case 1:
+                    if (currentToken.kind == ASSIGN && result instanceof VarExpr){
+                        target = (VarExpr) result;
+                        advance();
+                        call(new ExpressionFrame());
+                        state = 2;
+                    }
+                    else {
+                        ret(result);
+                    }
+                    break;
+                default:
+                    VarExpr ref = (VarExpr) target.getRef();
+                    ret(new AssignExpr(position,
+                            ref == null ? null : ref.getName(),
+                            target.getName(), (Expr) result));
+            }
+        }
+    }
+
+    // operands joined by binary operators, as in parseBinaryExpr
+    private class BinaryFrame extends Frame
+    {
+        final int position = currentToken.position;
+        final int minPrecedence;
+        int maxPrecedence = MULT_LEVEL;
+        int precedence;    // the precedence of the operator being parsed
+        Operator operator; // the operator being parsed
+        Expr left;
+
+        BinaryFrame(int minPrecedence) {
+            this.minPrecedence = minPrecedence;
+        }
+
+        @Override
+        void step() throws IOException {
+            switch (state) {
+                case 0:
+                    call(new UnaryFrame());
+                    state = 1;
+                    return;
+                case 1:
+                    left = (Expr) result;
+                    break;
+                default:
+                    left = makeBinaryExpr(position, operator, left, (Expr) result);
+                    maxPrecedence = precedence;
+            }
+            while (true) {
+                precedence = precedenceOf(currentToken);
+                if (precedence < minPrecedence || precedence > maxPrecedence) {
+                    ret(left);
+                    return;
+                }
+                operator = currentToken.operator;
+                advance();
+                if (operator != null) {
+                    call(new BinaryFrame(precedence + 1));
+                    state = 2;
+                    return;
+                }
+                left = new InstanceofExpr(position, left, parseType());
+                maxPrecedence = precedence;
+            }
+        }
+    }
+
+    // <NewCastOrUnary> ::= <NewExpression> | <CastExpression> | <UnaryPrefix>
+    // <UnaryPrefix> ::= <PrefixOp> <NewCastOrUnary> | <UnaryPostfix>
+    private class UnaryFrame extends Frame
+    {
+        final int position = currentToken.position;
+        Operator operator;
+
+        @Override
+        void step() throws IOException {
+            if (state == 0) {
+                operator = currentToken.operator;
+                if (currentToken.kind == NEW){
+                    ret(parseNew());
+                }
+                else if (currentToken.kind == CAST){
+                    tailCall(new CastFrame());
+                }
+                else if (operator == Operator.MINUS || operator == Operator.NOT
+                        || operator == Operator.INCR || operator == Operator.DECR){
+                    advance();
+                    call(new UnaryFrame());
+                    state = 1;
+                }
+                else {
+                    tailCall(new PostfixFrame());
+                }
+                return;
+            }
+            Expr expr = (Expr) result;
+            switch (operator) {
+                case MINUS -> ret(new UnaryNegExpr(position, expr));
+                case NOT -> ret(new UnaryNotExpr(position, expr));
+                case INCR -> ret(new UnaryIncrExpr(position, expr, false));
+                default -> ret(new UnaryDecrExpr(position, expr, false));
+            }
+        }
+    }
+
+    // <CastExpression> ::= CAST ( <Type> , <Expression> )
+    private class CastFrame extends Frame
+    {
+        final int position = currentToken.position;
+        String typeStr;
+
+        @Override
+        void step() throws IOException {
+            if (state == 0) {
+                advance();
+                expect(LPAREN, "Exception: expecting a \"(\"");
+                typeStr = parseType();
+                expect(COMMA, "Exception: expecting a \",\"");
+                call(new ExpressionFrame());
+                state = 1;
+            }
+            else {
+                expect(RPAREN, "Exception: expecting a \")\"");
+                ret(new CastExpr(position, typeStr, (Expr) result));
+            }
+        }
+    }
+
+    // <UnaryPostfix> ::= <Primary> <PostfixOp>
+    private class PostfixFrame extends Frame
+    {
+        final int position = currentToken.position;
+
+        @Override
+        void step() throws IOException {
+            if (state == 0) {
+                call(new PrimaryFrame());
+                state = 1;
+            }
+            else if (currentToken.kind == UNARYINCR){
+                advance();
+                ret(new UnaryIncrExpr(position, (Expr) result, true));
+            }
+            else if (currentToken.kind == UNARYDECR){
+                advance();
+                ret(new UnaryDecrExpr(position, (Expr) result, true));
+            }
+            else {
+                ret(result);
+            }
+        }
+    }
+
+    // <Primary> ::= ( <Expression> ) | <IntegerConst> | <BooleanConst> |
+    //                              <StringConst> | <VarExpr>
+    // <VarExprSuffix> ::= ( <Arguments> ) | EMPTY
+    private class PrimaryFrame extends Frame
+    {
+        final int position = currentToken.position;
+        VarExpr prefixVarExpr;
+        String name;
+        ExprList args;
+
+        @Override
+        void step() throws IOException {
+            switch (state) {
+                case 0:
+                    first();
+                    break;
+                case 1: // ( <Expression> ) was parsed up to the ")"
+                    expect(RPAREN, "Illegal expression: " +
+                            "unclosed parenthesis, \")\" expected");
+                    ret(result);
+                    break;
+                default: // an argument was parsed
+                    args.addElement((Expr) result);
+                    if (currentToken.kind == COMMA){
+                        advance();
+                        call(new ExpressionFrame());
+                    }
+                    else {
+                        endDispatch();
+                    }
+            }
+        }
+
+        /** parses the primary up to its first nested expression, if any */
+        private void first() throws IOException {
+            if (currentToken.kind == LPAREN){
+                advance();
+                call(new ExpressionFrame());
+                state = 1;
+                return;
+            }
+            switch (currentToken.kind) {
+                case INTCONST -> ret(parseIntConst());
+                case BOOLEAN -> ret(parseBoolean());
+                case STRCONST -> ret(parseStringConst());
+                default -> {
+                    name = parseIdentifier();
+                    if (currentToken.kind == DOT && isThisOrSuper(name)) {
+                        prefixVarExpr = new VarExpr(position, null, name);
+                        advance();
+                        name = parseIdentifier();
+                    }
+                    if (currentToken.kind != LPAREN){
+                        ret(new VarExpr(position, prefixVarExpr, name));
+                        return;
+                    }
+                    advance();
+                    args = new ExprList(currentToken.position);
+                    if (currentToken.kind != RPAREN){
+                        call(new ExpressionFrame());
+                        state = 2;
+                    }
+                    else {
+                        endDispatch();
+                    }
+                }
+            }
+        }
+
+        /** finishes a method call after its arguments */
+        private void endDispatch() throws IOException {
+            expect(RPAREN, "Illegal expression: " +
+                    "unclosed parenthesis, \")\" expected");
+            args.freeze();
+            ret(new DispatchExpr(position, prefixVarExpr, name, args));
+        }
+    }
+
+
     //----------------------------------------
     //Terminals
 
     private String parseOperator() {
-        // set of all possible operators
-        Set<Token.Kind> operators = Set.of(BINARYLOGIC, PLUSMINUS,
-                MULDIV, COMPARE, UNARYINCR, UNARYDECR, ASSIGN,
-                UNARYNOT);
-        if (!operators.contains(currentToken.kind)){
+        // only the tokens of the operator kinds have an Operator
+        if (currentToken.operator == null){
             handleErr("Illegal identifier");
         }
         return currentToken.spelling;
     }
 
 
-    private String parseIdentifier() {
+    private String parseIdentifier() throws IOException {
         if (currentToken.kind != IDENTIFIER){
             handleErr("Illegal identifier");
         }
-        return currentToken.spelling;
+        String name = currentToken.spelling;
+        advance();
+        return name;
     }
 
 
@@ -922,28 +2029,60 @@ public class Parser
         //...save the currentToken's string to a local variable...
         String strConst = currentToken.spelling;
         //...advance to the next token...
-        currentToken = scanner.scan();
+        advance();
         //...return a new ConstStringExpr containing the string...
         return new ConstStringExpr(position,strConst);
     }
 
 
-    private ConstIntExpr parseIntConst() {
+    private ConstIntExpr parseIntConst() throws IOException {
         if (currentToken.kind != INTCONST){
             handleErr("Illegal integer constant");
         }
         int position = currentToken.position;
-        return new ConstIntExpr(position, currentToken.spelling);
+        String intConst = currentToken.spelling;
+        advance();
+        return new ConstIntExpr(position, intConst);
     }
 
 
-    private ConstBooleanExpr parseBoolean() {
+    private ConstBooleanExpr parseBoolean() throws IOException {
         if (currentToken.kind != BOOLEAN){
             handleErr("Illegal boolean");
         }
         int position = currentToken.position;
-        return new ConstBooleanExpr(position, currentToken.spelling);
+        String boolConst = currentToken.spelling;
+        advance();
+        return new ConstBooleanExpr(position, boolConst);
     }
 
-}
 
+    public static void main(String[] args) throws IOException {
+
+        for (String arg : args) {
+            System.out.println(arg);
+            ErrorHandler errorHandler = new ErrorHandler();
+            Parser parser = new Parser(errorHandler);
+            try {
+                Program program = parser.parse(arg);
+                if (errorHandler.errorsFound()) {
+                    System.out.println("Parsing failed");
+                    for (Error error : errorHandler.getErrorList()) {
+                        System.out.println(error);
+                    }
+                }
+                else {
+                    System.out.println("Parsing was successful");
+                    if (!GraphicsEnvironment.isHeadless()) {
+                        new Drawer().draw(arg, program);
+                    }
+                }
+            } catch (CompilationException e) {
+                System.out.println("Parsing failed");
+                System.out.println(e.getMessage());
+            }
+        }
+
+    }
+
+}
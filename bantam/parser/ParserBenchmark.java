@@ -0,0 +1,135 @@
+/*
+ * File: ParserBenchmark.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.parser;
+
+import proj8BogatyrevDimitrovWang.bantam.lexer.Lexer;
+import proj8BogatyrevDimitrovWang.bantam.lexer.Token;
+import proj8BogatyrevDimitrovWang.bantam.lexer.TokenBuffer;
+import proj8BogatyrevDimitrovWang.bantam.util.ErrorHandler;
+import proj8BogatyrevDimitrovWang.bantam.util.NameTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the throughput of the parser on the Bantam files given as
+ * command line arguments: from the file (lexing included), from a String
+ * by one Parser that is reset and reused, from tokens
+ * lexed beforehand into a TokenBuffer, with method bodies left unparsed
+ * (as for an outline of the classes), and from Token objects made
+ * beforehand (parsing only). The number of syntax errors found per second
+ * is reported too, which is what matters for inputs that are mostly
+ * invalid. Each measurement is repeated until it has run for about a
+ * second, after two warm-up rounds of the same length.
+ */
+public class ParserBenchmark
+{
+    /** how long each measurement (and each warm-up) runs, in nanoseconds */
+    private static final long RUN_NANOS = 1_000_000_000L;
+
+    /** a task that parses once and returns the number of errors found */
+    private interface ParseTask
+    {
+        int run() throws IOException;
+    }
+
+    /**
+     * runs the task repeatedly after a warm-up
+     *
+     * @param task the work to measure
+     * @return {number of runs, elapsed nanoseconds, errors found per run}
+     */
+    private static long[] measure(ParseTask task) throws IOException {
+        run(task); // warm-up
+        run(task);
+        return run(task);
+    }
+
+    /**
+     * @return {number of runs, elapsed nanoseconds, errors found per run}
+     */
+    private static long[] run(ParseTask task) throws IOException {
+        long runs = 0;
+        int errors = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            errors = task.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < RUN_NANOS);
+        return new long[] {runs, elapsed, errors};
+    }
+
+    /**
+     * prints the throughput of one measurement
+     *
+     * @param label what was measured
+     * @param bytes the size of the file
+     * @param result the result of measure()
+     */
+    private static void report(String label, long bytes, long[] result) {
+        double seconds = result[1] / 1e9;
+        System.out.printf("  %-24s %8.1f MB/s, %8.1f parses/s, %10.0f errors/s%n",
+                label + ":", bytes * result[0] / 1e6 / seconds, result[0] / seconds,
+                result[2] * result[0] / seconds);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: ParserBenchmark file.btm ...");
+            return;
+        }
+        for (String arg : args) {
+            long bytes = new File(arg).length();
+            System.out.println(arg);
+            report("Parser (from file)", bytes, measure(() -> {
+                ErrorHandler errorHandler = new ErrorHandler();
+                new Parser(errorHandler).parse(arg);
+                return errorHandler.getErrorList().size();
+            }));
+            String text = Files.readString(Path.of(arg), Charset.defaultCharset());
+            ErrorHandler reusedErrors = new ErrorHandler();
+            Parser reused = new Parser(reusedErrors);
+            report("Parser (reused, String)", bytes, measure(() -> {
+                reused.reset();
+                reused.parse(text, arg);
+                return reusedErrors.getErrorList().size();
+            }));
+            NameTable names = new NameTable();
+            TokenBuffer tokens = TokenBuffer.lex(arg, new ErrorHandler(), names);
+            report("Parser (TokenBuffer)", bytes, measure(() -> {
+                ErrorHandler errorHandler = new ErrorHandler();
+                new Parser(errorHandler, names).parse(tokens);
+                return errorHandler.getErrorList().size();
+            }));
+            report("Parser (lazy bodies)", bytes, measure(() -> {
+                ErrorHandler errorHandler = new ErrorHandler();
+                Parser parser = new Parser(errorHandler, names);
+                parser.setLazyBodies(true);
+                parser.parse(tokens);
+                return errorHandler.getErrorList().size();
+            }));
+            // the Token objects made up front, so that only parsing is measured
+            Token[] tokenArray = new Token[tokens.size()];
+            for (int i = 0; i < tokenArray.length; i++) {
+                tokenArray[i] = tokens.get(i);
+            }
+            report("Parser (parsing only)", bytes, measure(() -> {
+                ErrorHandler errorHandler = new ErrorHandler();
+                int[] next = {0};
+                Lexer lexer = () -> tokenArray[Math.min(next[0]++, tokenArray.length - 1)];
+                new Parser(errorHandler, names).parse(lexer, arg);
+                return errorHandler.getErrorList().size();
+            }));
+        }
+    }
+}
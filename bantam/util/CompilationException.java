@@ -23,6 +23,19 @@ public class CompilationException extends RuntimeException
         this.errorHandler = errorHandler;
     }
 
+    /**
+     * creates an exception whose details are in the ErrorHandler, optionally
+     * without a stack trace. Filling in the stack trace is most of the cost
+     * of an exception, and is wasted when the exception is caught by the
+     * compiler to recover from the error rather than shown to anyone.
+     * @param errorHandler the ErrorHandler with the details of the error.
+     * @param stackTrace whether to record the stack trace
+     */
+    public CompilationException(ErrorHandler errorHandler, boolean stackTrace) {
+        super(null, null, false, stackTrace);
+        this.errorHandler = errorHandler;
+    }
+
     /**
      * creates an exception with a message and a cause
      * @param message The message telling the reason the exception was thrown
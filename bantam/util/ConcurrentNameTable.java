@@ -0,0 +1,107 @@
+/*
+ * File: ConcurrentNameTable.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.util;
+
+/**
+ * A NameTable that can be shared by the threads of a compilation, so that
+ * files scanned and parsed on different threads still get one canonical
+ * String per distinct name, and the names of their ASTs can be compared
+ * by reference with each other.
+ *
+ * The names are spread over a number of stripes by their hash, each an
+ * ordinary NameTable with a lock of its own, so threads looking up
+ * different names seldom wait for each other. Every stripe hands out
+ * NameTable.THIS and NameTable.SUPER, as any NameTable does.
+ */
+public class ConcurrentNameTable extends NameTable
+{
+    private final NameTable[] stripes; // their number is a power of 2
+    private final int shift;           // 32 minus the bits of a stripe index
+
+    /**
+     * creates a table with four stripes per processor
+     */
+    public ConcurrentNameTable() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * creates a table with at least the given number of stripes
+     *
+     * @param stripeCount the number of threads that should be able to look
+     *                    up names at once, about
+     */
+    public ConcurrentNameTable(int stripeCount) {
+        int bits = stripeCount <= 1 ? 0 :
+                32 - Integer.numberOfLeadingZeros(stripeCount - 1);
+        stripes = new NameTable[1 << bits];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new NameTable();
+        }
+        shift = 32 - bits;
+    }
+
+    @Override
+    public String intern(CharSequence chars) {
+        int hash = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        NameTable stripe = stripeOf(hash);
+        synchronized (stripe) {
+            return stripe.intern(chars);
+        }
+    }
+
+    @Override
+    public String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        NameTable stripe = stripeOf(hash);
+        synchronized (stripe) {
+            return stripe.intern(chars, offset, length);
+        }
+    }
+
+    @Override
+    public String intern(String name) {
+        NameTable stripe = stripeOf(name.hashCode());
+        synchronized (stripe) {
+            return stripe.intern(name);
+        }
+    }
+
+    /**
+     * @return the number of distinct names in the table, "this" and
+     * "super" included
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (NameTable stripe : stripes) {
+            synchronized (stripe) {
+                // each stripe holds "this" and "super"
+                size += stripe.size() - 2;
+            }
+        }
+        return size + 2;
+    }
+
+    /**
+     * picks the stripe by the top bits of the hash, as each stripe picks
+     * its slots by the bottom bits
+     *
+     * @param hash the String.hashCode() of a name
+     * @return the stripe that holds the name
+     */
+    private NameTable stripeOf(int hash) {
+        return stripes[shift == 32 ? 0 : (hash * 0x9E3779B9) >>> shift];
+    }
+}
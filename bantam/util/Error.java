@@ -89,6 +89,9 @@ public class Error {
         if (getFilename() == null) { // the chars came from a Reader rather than a file
             return getTypeString(getKind()) + getMessage();
         }
+        else if (getLineNum() < 0) { // the line is not known
+            return getFilename() + ":" + getTypeString(getKind()) + getMessage();
+        }
         else {
             return getFilename() + ":" + getLineNum() + ":" +
                     getTypeString(getKind()) + getMessage();
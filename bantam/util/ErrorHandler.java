@@ -37,6 +37,11 @@ import java.util.List;
  * of a list of errors that the compiler finds.
  */
 public class ErrorHandler {
+    /**
+     * The most errors that are kept; any more are dropped
+     */
+    public static final int MAX_ERRORS = 100;
+
     /**
      * The list of errors
      */
@@ -49,8 +54,8 @@ public class ErrorHandler {
      */
     private void register(Error error) {
         // insert a new error into the error list
-        // but keep at most 100 errors.
-        if (errorList.size() < 100) {
+        // but keep at most MAX_ERRORS errors.
+        if (errorList.size() < MAX_ERRORS) {
             insert(error);
         }
     }
@@ -88,6 +93,13 @@ public class ErrorHandler {
         return errorList.size() > 0;
     }
 
+    /**
+     * return true if no more errors will be kept.
+     */
+    public boolean isFull() {
+        return errorList.size() >= MAX_ERRORS;
+    }
+
     /**
      * Insert an error onto the error list
      *
@@ -0,0 +1,157 @@
+/*
+ * File: NameTable.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.util;
+
+/**
+ * A table of the identifier names seen during a compilation, which hands
+ * out one canonical String per distinct name. The Scanner looks up every
+ * identifier it collects, so a name that occurs thousands of times in a
+ * program is stored once, and the names copied from tokens into the AST
+ * can be compared by reference.
+ *
+ * Lookups compare characters directly against the stored Strings, so
+ * finding a name that is already in the table allocates nothing.
+ * A NameTable belongs to one compilation and is not thread-safe; a
+ * ConcurrentNameTable can be shared by the threads of a compilation.
+ * Every table hands out THIS and SUPER for "this" and "super", so the
+ * Parser can tell them apart from other names by reference whichever
+ * table the tokens were lexed with.
+ */
+public class NameTable
+{
+    /** open-addressing hash table of the names; its length is a power of 2 */
+    private String[] names = new String[256];
+    /** the number of names in the table */
+    private int size;
+
+    /** the canonical "this" of every table */
+    public static final String THIS = "this";
+
+    /** the canonical "super" of every table */
+    public static final String SUPER = "super";
+
+    /**
+     * creates a table that holds THIS and SUPER
+     */
+    public NameTable() {
+        // not by intern(), which a subclass may override
+        lookUp(THIS);
+        lookUp(SUPER);
+    }
+
+    /**
+     * @param chars the characters of a name
+     * @return the canonical String with the same characters
+     */
+    public String intern(CharSequence chars) {
+        return lookUp(chars);
+    }
+
+    /**
+     * @param chars the characters of a name
+     * @return the canonical String with the same characters
+     */
+    private String lookUp(CharSequence chars) {
+        int length = chars.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int mask = names.length - 1;
+        int slot = mix(hash) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (name.length() == length && name.hashCode() == hash &&
+                    name.contentEquals(chars)) {
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, chars.toString());
+    }
+
+    /**
+     * @param chars a buffer holding the characters of a name
+     * @param offset the index of the first character
+     * @param length the number of characters
+     * @return the canonical String with the same characters
+     */
+    public String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int mask = names.length - 1;
+        int slot = mix(hash) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (name.length() == length && name.hashCode() == hash &&
+                    sameChars(name, chars, offset)) {
+                return name;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, new String(chars, offset, length));
+    }
+
+    /**
+     * @param name a String
+     * @return the canonical String equal to name (name itself if it is new)
+     */
+    public String intern(String name) {
+        return intern((CharSequence) name);
+    }
+
+    /**
+     * @return the number of distinct names in the table, "this" and
+     * "super" included
+     */
+    public int size() {
+        return size;
+    }
+
+    private static boolean sameChars(String name, char[] chars, int offset) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * spreads the bits of String.hashCode(), whose low bits are poor for
+     * short names, over the part used to pick a slot
+     */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * stores a new name in the given empty slot, growing the table when
+     * it gets half full
+     */
+    private String add(int slot, String name) {
+        names[slot] = name;
+        if (++size > names.length / 2) {
+            String[] old = names;
+            names = new String[old.length * 2];
+            int mask = names.length - 1;
+            for (String s : old) {
+                if (s != null) {
+                    int i = mix(s.hashCode()) & mask;
+                    while (names[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    names[i] = s;
+                }
+            }
+        }
+        return name;
+    }
+}
@@ -0,0 +1,631 @@
+/*
+ * File: IntVisitor.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.visitor;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.*;
+
+/**
+ * Abstract visitor class for traversing the AST that computes an int for
+ * each node, such as a count, without boxing it as a Visitor or a
+ * TypedVisitor would. By default each node's children are visited, with
+ * the same context, and the result is the sum of their results (0 for a
+ * node without children), so a subclass that counts some kind of node
+ * only overrides the visit of that kind. Lists are walked by index,
+ * without an Iterator.
+ *
+ * @param <C> the type of the context of the visits
+ */
+public abstract class IntVisitor<C>
+{
+    /**
+     * Visit a program node
+     *
+     * @param node the program node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(Program node, C context) {
+        int result = 0;
+        result += node.getClassList().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a list node of classes
+     *
+     * @param node the list node of classes
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ClassList node, C context) {
+        int result = 0;
+        for (int i = 0; i < node.getSize(); i++) {
+            result += node.get(i).accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a class node
+     *
+     * @param node the class node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(Class_ node, C context) {
+        int result = 0;
+        result += node.getMemberList().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a list node of members
+     *
+     * @param node the list node of members
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(MemberList node, C context) {
+        int result = 0;
+        for (int i = 0; i < node.getSize(); i++) {
+            result += node.get(i).accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a field node
+     *
+     * @param node the field node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(Field node, C context) {
+        int result = 0;
+        if (node.getInit() != null) {
+            result += node.getInit().accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a method node
+     *
+     * @param node the method node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(Method node, C context) {
+        int result = 0;
+        result += node.getFormalList().accept(this, context);
+        result += node.getStmtList().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a list node of formals
+     *
+     * @param node the list node of formals
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(FormalList node, C context) {
+        int result = 0;
+        for (int i = 0; i < node.getSize(); i++) {
+            result += node.get(i).accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a formal node
+     *
+     * @param node the formal node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(Formal node, C context) {
+        return 0;
+    }
+
+    /**
+     * Visit a list node of statements
+     *
+     * @param node the list node of statements
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(StmtList node, C context) {
+        int result = 0;
+        for (int i = 0; i < node.getSize(); i++) {
+            result += node.get(i).accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a declaration statement node
+     *
+     * @param node the declaration statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(DeclStmt node, C context) {
+        int result = 0;
+        result += node.getInit().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit an expression statement node
+     *
+     * @param node the expression statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ExprStmt node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit an if statement node
+     *
+     * @param node the if statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(IfStmt node, C context) {
+        int result = 0;
+        result += node.getPredExpr().accept(this, context);
+        result += node.getThenStmt().accept(this, context);
+        if (node.getElseStmt() != null) {
+            result += node.getElseStmt().accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a while statement node
+     *
+     * @param node the while statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(WhileStmt node, C context) {
+        int result = 0;
+        result += node.getPredExpr().accept(this, context);
+        result += node.getBodyStmt().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a for statement node
+     *
+     * @param node the for statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ForStmt node, C context) {
+        int result = 0;
+        if (node.getInitExpr() != null) {
+            result += node.getInitExpr().accept(this, context);
+        }
+        if (node.getPredExpr() != null) {
+            result += node.getPredExpr().accept(this, context);
+        }
+        if (node.getUpdateExpr() != null) {
+            result += node.getUpdateExpr().accept(this, context);
+        }
+        result += node.getBodyStmt().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a break statement node
+     *
+     * @param node the break statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BreakStmt node, C context) {
+        return 0;
+    }
+
+    /**
+     * Visit a block statement node
+     *
+     * @param node the block statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BlockStmt node, C context) {
+        int result = 0;
+        result += node.getStmtList().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a return statement node
+     *
+     * @param node the return statement node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ReturnStmt node, C context) {
+        int result = 0;
+        if (node.getExpr() != null) {
+            result += node.getExpr().accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a list node of expressions
+     *
+     * @param node the list node of expressions
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ExprList node, C context) {
+        int result = 0;
+        for (int i = 0; i < node.getSize(); i++) {
+            result += node.get(i).accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit a dispatch expression node
+     *
+     * @param node the dispatch expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(DispatchExpr node, C context) {
+        int result = 0;
+        if (node.getRefExpr() != null) {
+            result += node.getRefExpr().accept(this, context);
+        }
+        result += node.getActualList().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a new expression node
+     *
+     * @param node the new expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(NewExpr node, C context) {
+        return 0;
+    }
+
+    /**
+     * Visit an instanceof expression node
+     *
+     * @param node the instanceof expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(InstanceofExpr node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a cast expression node
+     *
+     * @param node the cast expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(CastExpr node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit an assignment expression node
+     *
+     * @param node the assignment expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(AssignExpr node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary comparison equals expression node
+     *
+     * @param node the binary comparison equals expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryCompEqExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary comparison not equals expression node
+     *
+     * @param node the binary comparison not equals expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryCompNeExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary comparison less than expression node
+     *
+     * @param node the binary comparison less than expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryCompLtExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary comparison less than or equal to expression node
+     *
+     * @param node the binary comparison less than or equal to expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryCompLeqExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary comparison greater than expression node
+     *
+     * @param node the binary comparison greater than expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryCompGtExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary comparison greater than or equal to expression node
+     *
+     * @param node the binary comparison greater than or equal to expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryCompGeqExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary arithmetic plus expression node
+     *
+     * @param node the binary arithmetic plus expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryArithPlusExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary arithmetic minus expression node
+     *
+     * @param node the binary arithmetic minus expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryArithMinusExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary arithmetic times expression node
+     *
+     * @param node the binary arithmetic times expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryArithTimesExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary arithmetic divide expression node
+     *
+     * @param node the binary arithmetic divide expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryArithDivideExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary arithmetic modulus expression node
+     *
+     * @param node the binary arithmetic modulus expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryArithModulusExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary logical AND expression node
+     *
+     * @param node the binary logical AND expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryLogicAndExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a binary logical OR expression node
+     *
+     * @param node the binary logical OR expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(BinaryLogicOrExpr node, C context) {
+        int result = 0;
+        result += node.getLeftExpr().accept(this, context);
+        result += node.getRightExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a unary negation expression node
+     *
+     * @param node the unary negation expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(UnaryNegExpr node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a unary NOT expression node
+     *
+     * @param node the unary NOT expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(UnaryNotExpr node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a unary increment expression node
+     *
+     * @param node the unary increment expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(UnaryIncrExpr node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a unary decrement expression node
+     *
+     * @param node the unary decrement expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(UnaryDecrExpr node, C context) {
+        int result = 0;
+        result += node.getExpr().accept(this, context);
+        return result;
+    }
+
+    /**
+     * Visit a variable expression node
+     *
+     * @param node the variable expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(VarExpr node, C context) {
+        int result = 0;
+        if (node.getRef() != null) {
+            result += node.getRef().accept(this, context);
+        }
+        return result;
+    }
+
+    /**
+     * Visit an int constant expression node
+     *
+     * @param node the int constant expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ConstIntExpr node, C context) {
+        return 0;
+    }
+
+    /**
+     * Visit a boolean constant expression node
+     *
+     * @param node the boolean constant expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ConstBooleanExpr node, C context) {
+        return 0;
+    }
+
+    /**
+     * Visit a string constant expression node
+     *
+     * @param node the string constant expression node
+     * @param context the context of the visit
+     * @return the sum of the results of the visits of its children
+     */
+    public int visit(ConstStringExpr node, C context) {
+        return 0;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * File: StackVisitor.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.visitor;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Base class for traversing the AST without recursion: the nodes still
+ * to be visited are kept on a stack on the heap, so a deeply nested AST
+ * can't overflow the thread's stack as it can with a Visitor.
+ *
+ * The nodes are visited in the order a Visitor visits them. Each node is
+ * entered before its children are visited and left after them. Subclasses
+ * override enter() and leave() and can tell the kinds of node apart with
+ * instanceof.
+ */
+public abstract class StackVisitor
+{
+    private final List<ASTNode> children = new ArrayList<>(); // reused
+
+    /**
+     * visits the given node and all the nodes below it
+     *
+     * @param root the node at which to start
+     */
+    public void traverse(ASTNode root) {
+        ASTNode[] stack = new ASTNode[64];
+        boolean[] entered = new boolean[64]; // whether each node on the stack was entered
+        int size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            ASTNode node = stack[--size];
+            stack[size] = null;
+            if (entered[size]) {
+                entered[size] = false;
+                leave(node);
+            }
+            else if (enter(node)) {
+                List<ASTNode> children = childrenOf(node);
+                if (size + children.size() + 1 > stack.length) {
+                    int capacity = Math.max(stack.length * 2, size + children.size() + 1);
+                    stack = Arrays.copyOf(stack, capacity);
+                    entered = Arrays.copyOf(entered, capacity);
+                }
+                stack[size] = node;
+                entered[size++] = true;
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack[size++] = children.get(i);
+                }
+            }
+            else {
+                leave(node);
+            }
+        }
+    }
+
+    /**
+     * @param node a node
+     * @return its children, in the order they are visited; the list is
+     * reused by the next call
+     */
+    protected List<ASTNode> childrenOf(ASTNode node) {
+        children.clear();
+        node.addChildrenTo(children);
+        return children;
+    }
+
+    /**
+     * called when the node is reached, before its children are visited
+     *
+     * @param node the node
+     * @return whether to visit the node's children
+     */
+    protected boolean enter(ASTNode node) {
+        return true;
+    }
+
+    /**
+     * called after the node's children were visited (or skipped)
+     *
+     * @param node the node
+     */
+    protected void leave(ASTNode node) {
+    }
+}
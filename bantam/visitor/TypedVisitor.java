@@ -0,0 +1,593 @@
+/*
+ * File: TypedVisitor.java
+ * Names: Anton Dimitrov, Baron Wang, Phil Bogatyrev
+ * Class: CS 361
+ * Project 8
+ */
+
+package proj8BogatyrevDimitrovWang.bantam.visitor;
+
+import proj8BogatyrevDimitrovWang.bantam.ast.*;
+
+/**
+ * Abstract visitor class for traversing the AST, like Visitor, but with
+ * the type of its results as a type parameter and a context passed down
+ * to each visit, so that neither the results nor the state that a visit
+ * needs have to be cast or kept in fields. By default each node's
+ * children are visited, with the same context, and the result is null.
+ * Lists are walked by index, without an Iterator.
+ *
+ * @param <R> the type of the results of the visits
+ * @param <C> the type of the context of the visits
+ */
+public abstract class TypedVisitor<R, C>
+{
+    /**
+     * Visit a program node
+     *
+     * @param node the program node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(Program node, C context) {
+        node.getClassList().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a list node of classes
+     *
+     * @param node the list node of classes
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ClassList node, C context) {
+        for (int i = 0; i < node.getSize(); i++) {
+            node.get(i).accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a class node
+     *
+     * @param node the class node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(Class_ node, C context) {
+        node.getMemberList().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a list node of members
+     *
+     * @param node the list node of members
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(MemberList node, C context) {
+        for (int i = 0; i < node.getSize(); i++) {
+            node.get(i).accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a field node
+     *
+     * @param node the field node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(Field node, C context) {
+        if (node.getInit() != null) {
+            node.getInit().accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a method node
+     *
+     * @param node the method node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(Method node, C context) {
+        node.getFormalList().accept(this, context);
+        node.getStmtList().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a list node of formals
+     *
+     * @param node the list node of formals
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(FormalList node, C context) {
+        for (int i = 0; i < node.getSize(); i++) {
+            node.get(i).accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a formal node
+     *
+     * @param node the formal node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(Formal node, C context) {
+        return null;
+    }
+
+    /**
+     * Visit a list node of statements
+     *
+     * @param node the list node of statements
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(StmtList node, C context) {
+        for (int i = 0; i < node.getSize(); i++) {
+            node.get(i).accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a declaration statement node
+     *
+     * @param node the declaration statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(DeclStmt node, C context) {
+        node.getInit().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit an expression statement node
+     *
+     * @param node the expression statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ExprStmt node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit an if statement node
+     *
+     * @param node the if statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(IfStmt node, C context) {
+        node.getPredExpr().accept(this, context);
+        node.getThenStmt().accept(this, context);
+        if (node.getElseStmt() != null) {
+            node.getElseStmt().accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a while statement node
+     *
+     * @param node the while statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(WhileStmt node, C context) {
+        node.getPredExpr().accept(this, context);
+        node.getBodyStmt().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a for statement node
+     *
+     * @param node the for statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ForStmt node, C context) {
+        if (node.getInitExpr() != null) {
+            node.getInitExpr().accept(this, context);
+        }
+        if (node.getPredExpr() != null) {
+            node.getPredExpr().accept(this, context);
+        }
+        if (node.getUpdateExpr() != null) {
+            node.getUpdateExpr().accept(this, context);
+        }
+        node.getBodyStmt().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a break statement node
+     *
+     * @param node the break statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BreakStmt node, C context) {
+        return null;
+    }
+
+    /**
+     * Visit a block statement node
+     *
+     * @param node the block statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BlockStmt node, C context) {
+        node.getStmtList().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a return statement node
+     *
+     * @param node the return statement node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ReturnStmt node, C context) {
+        if (node.getExpr() != null) {
+            node.getExpr().accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a list node of expressions
+     *
+     * @param node the list node of expressions
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ExprList node, C context) {
+        for (int i = 0; i < node.getSize(); i++) {
+            node.get(i).accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit a dispatch expression node
+     *
+     * @param node the dispatch expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(DispatchExpr node, C context) {
+        if (node.getRefExpr() != null) {
+            node.getRefExpr().accept(this, context);
+        }
+        node.getActualList().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a new expression node
+     *
+     * @param node the new expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(NewExpr node, C context) {
+        return null;
+    }
+
+    /**
+     * Visit an instanceof expression node
+     *
+     * @param node the instanceof expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(InstanceofExpr node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a cast expression node
+     *
+     * @param node the cast expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(CastExpr node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit an assignment expression node
+     *
+     * @param node the assignment expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(AssignExpr node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary comparison equals expression node
+     *
+     * @param node the binary comparison equals expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryCompEqExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary comparison not equals expression node
+     *
+     * @param node the binary comparison not equals expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryCompNeExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary comparison less than expression node
+     *
+     * @param node the binary comparison less than expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryCompLtExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary comparison less than or equal to expression node
+     *
+     * @param node the binary comparison less than or equal to expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryCompLeqExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary comparison greater than expression node
+     *
+     * @param node the binary comparison greater than expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryCompGtExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary comparison greater than or equal to expression node
+     *
+     * @param node the binary comparison greater than or equal to expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryCompGeqExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary arithmetic plus expression node
+     *
+     * @param node the binary arithmetic plus expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryArithPlusExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary arithmetic minus expression node
+     *
+     * @param node the binary arithmetic minus expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryArithMinusExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary arithmetic times expression node
+     *
+     * @param node the binary arithmetic times expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryArithTimesExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary arithmetic divide expression node
+     *
+     * @param node the binary arithmetic divide expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryArithDivideExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary arithmetic modulus expression node
+     *
+     * @param node the binary arithmetic modulus expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryArithModulusExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary logical AND expression node
+     *
+     * @param node the binary logical AND expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryLogicAndExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a binary logical OR expression node
+     *
+     * @param node the binary logical OR expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(BinaryLogicOrExpr node, C context) {
+        node.getLeftExpr().accept(this, context);
+        node.getRightExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a unary negation expression node
+     *
+     * @param node the unary negation expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(UnaryNegExpr node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a unary NOT expression node
+     *
+     * @param node the unary NOT expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(UnaryNotExpr node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a unary increment expression node
+     *
+     * @param node the unary increment expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(UnaryIncrExpr node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a unary decrement expression node
+     *
+     * @param node the unary decrement expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(UnaryDecrExpr node, C context) {
+        node.getExpr().accept(this, context);
+        return null;
+    }
+
+    /**
+     * Visit a variable expression node
+     *
+     * @param node the variable expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(VarExpr node, C context) {
+        if (node.getRef() != null) {
+            node.getRef().accept(this, context);
+        }
+        return null;
+    }
+
+    /**
+     * Visit an int constant expression node
+     *
+     * @param node the int constant expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ConstIntExpr node, C context) {
+        return null;
+    }
+
+    /**
+     * Visit a boolean constant expression node
+     *
+     * @param node the boolean constant expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ConstBooleanExpr node, C context) {
+        return null;
+    }
+
+    /**
+     * Visit a string constant expression node
+     *
+     * @param node the string constant expression node
+     * @param context the context of the visit
+     * @return result of the visit
+     */
+    public R visit(ConstStringExpr node, C context) {
+        return null;
+    }
+}